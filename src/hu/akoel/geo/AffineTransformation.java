@@ -0,0 +1,93 @@
+package hu.akoel.geo;
+
+/**
+ * Helmert transformation compiled to an immutable 3×3 matrix plus translation, so that applying
+ * it costs nine multiplications and no unit conversion of the parameters.
+ *
+ *   x' = t + M·x,  M = | s1  -rz  ry |
+ *                      | rz   s1 -rx |
+ *                      | -ry  rx  s1 |
+ */
+public final class AffineTransformation {
+
+	public final double m00, m01, m02;
+	public final double m10, m11, m12;
+	public final double m20, m21, m22;
+	public final double tx, ty, tz;
+
+	public AffineTransformation( double m00, double m01, double m02, double m10, double m11, double m12, double m20, double m21, double m22, double tx, double ty, double tz ){
+		this.m00 = m00; this.m01 = m01; this.m02 = m02;
+		this.m10 = m10; this.m11 = m11; this.m12 = m12;
+		this.m20 = m20; this.m21 = m21; this.m22 = m22;
+		this.tx = tx; this.ty = ty; this.tz = tz;
+	}
+
+	/**
+	 * Compiles the Helmert parameters the same way as Cartesian.applyTransform uses them.
+	 */
+	public static AffineTransformation of( Transformation t ){
+		double rx = Math.toRadians( t.rTranslation.x/3600 ); // normalise seconds to radians
+		double ry = Math.toRadians( t.rTranslation.y/3600 );
+		double rz = Math.toRadians( t.rTranslation.z/3600 );
+		double s1 = t.rotation.s/1e6 + 1;                    // normalise ppm to (s+1)
+		return new AffineTransformation(
+				s1,  -rz, ry,
+				rz,  s1,  -rx,
+				-ry, rx,  s1,
+				t.tTranslation.x, t.tTranslation.y, t.tTranslation.z );
+	}
+
+	/**
+	 * Pure translation by dx/dy/dz metres.
+	 */
+	public static AffineTransformation translation( double dx, double dy, double dz ){
+		return new AffineTransformation( 1, 0, 0, 0, 1, 0, 0, 0, 1, dx, dy, dz );
+	}
+
+	/**
+	 * Composes the two transformations into one.
+	 *
+	 * @returns {AffineTransformation} Transformation applying ‘this’ first and next after it.
+	 */
+	public AffineTransformation then( AffineTransformation next ){
+		AffineTransformation n = next;
+		return new AffineTransformation(
+				n.m00*m00 + n.m01*m10 + n.m02*m20, n.m00*m01 + n.m01*m11 + n.m02*m21, n.m00*m02 + n.m01*m12 + n.m02*m22,
+				n.m10*m00 + n.m11*m10 + n.m12*m20, n.m10*m01 + n.m11*m11 + n.m12*m21, n.m10*m02 + n.m11*m12 + n.m12*m22,
+				n.m20*m00 + n.m21*m10 + n.m22*m20, n.m20*m01 + n.m21*m11 + n.m22*m21, n.m20*m02 + n.m21*m12 + n.m22*m22,
+				n.tx + n.m00*tx + n.m01*ty + n.m02*tz,
+				n.ty + n.m10*tx + n.m11*ty + n.m12*tz,
+				n.tz + n.m20*tx + n.m21*ty + n.m22*tz );
+	}
+
+	/**
+	 * @returns {boolean} True if the transformation leaves every point exactly where it is.
+	 */
+	public boolean isIdentity(){
+		return m00 == 1 && m01 == 0 && m02 == 0
+			&& m10 == 0 && m11 == 1 && m12 == 0
+			&& m20 == 0 && m21 == 0 && m22 == 1
+			&& tx == 0 && ty == 0 && tz == 0;
+	}
+
+	/**
+	 * Transforms the x/y/z coordinate, written to out[0..2].
+	 */
+	public void transform( double x, double y, double z, double[] out ){
+		out[0] = tx + x*m00 + y*m01 + z*m02;
+		out[1] = ty + x*m10 + y*m11 + z*m12;
+		out[2] = tz + x*m20 + y*m21 + z*m22;
+	}
+
+	/**
+	 * Transforms arrays of x/y/z coordinates in place.
+	 */
+	public void transform( double[] x, double[] y, double[] z, int offset, int count ){
+		for( int i = offset; i < offset + count; i++ ){
+			double x1 = x[i], y1 = y[i], z1 = z[i];
+			x[i] = tx + x1*m00 + y1*m01 + z1*m02;
+			y[i] = ty + x1*m10 + y1*m11 + z1*m12;
+			z[i] = tz + x1*m20 + y1*m21 + z1*m22;
+		}
+	}
+}
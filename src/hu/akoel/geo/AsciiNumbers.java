@@ -0,0 +1,189 @@
+package hu.akoel.geo;
+
+import java.util.Locale;
+
+/**
+ * Parsing and formatting of decimal numbers straight from and to ASCII bytes, without creating
+ * Strings.
+ */
+final class AsciiNumbers {
+
+	private static final double[] POWERS_OF_TEN = new double[ 23 ];
+	static{
+		POWERS_OF_TEN[0] = 1;
+		for( int i = 1; i < POWERS_OF_TEN.length; i++ ){
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[ i - 1 ] * 10;
+		}
+	}
+
+	// more digits than this do not fit into the long mantissa
+	private static final int MAX_DIGITS = 18;
+
+	private AsciiNumbers(){
+	}
+
+	/**
+	 * Parses [sign] digits [. digits] [e|E [sign] digits] from b[from..to).
+	 *
+	 * @returns {number} The value, or NaN if the range is empty or not a number.
+	 */
+	static double parseDouble( byte[] b, int from, int to ){
+		int i = from;
+		boolean negative = false;
+		if( i < to && ( b[i] == '-' || b[i] == '+' ) ){
+			negative = b[i] == '-';
+			i++;
+		}
+
+		long mantissa = 0;
+		int digits = 0;
+		int exponent = 0;
+		boolean any = false;
+		for( ; i < to && b[i] >= '0' && b[i] <= '9'; i++ ){
+			any = true;
+			if( digits < MAX_DIGITS ){
+				mantissa = mantissa * 10 + ( b[i] - '0' );
+				if( mantissa != 0 ) digits++;
+			}else{
+				exponent++;
+			}
+		}
+		if( i < to && b[i] == '.' ){
+			for( i++; i < to && b[i] >= '0' && b[i] <= '9'; i++ ){
+				any = true;
+				if( digits < MAX_DIGITS ){
+					mantissa = mantissa * 10 + ( b[i] - '0' );
+					if( mantissa != 0 ) digits++;
+					exponent--;
+				}
+			}
+		}
+		if( !any ){
+			return Double.NaN;
+		}
+		if( i < to && ( b[i] == 'e' || b[i] == 'E' ) ){
+			int e = parseInt( b, i + 1, to );
+			if( e == Integer.MIN_VALUE ){
+				return Double.NaN;
+			}
+			exponent += e;
+		}else if( i != to ){
+			return Double.NaN;
+		}
+
+		double value;
+		if( exponent == 0 ){
+			value = mantissa;
+		}else if( exponent < 0 && -exponent < POWERS_OF_TEN.length && mantissa < ( 1L << 53 ) ){
+			value = mantissa / POWERS_OF_TEN[ -exponent ];  // exact operands, one rounding
+		}else if( exponent > 0 && exponent < POWERS_OF_TEN.length && mantissa < ( 1L << 53 ) ){
+			value = mantissa * POWERS_OF_TEN[ exponent ];
+		}else{
+			value = Double.parseDouble( mantissa + "E" + exponent );
+		}
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Parses [sign] digits from b[from..to).
+	 *
+	 * @returns {number} The value, or Integer.MIN_VALUE if the range is empty or not a number.
+	 */
+	static int parseInt( byte[] b, int from, int to ){
+		int i = from;
+		boolean negative = false;
+		if( i < to && ( b[i] == '-' || b[i] == '+' ) ){
+			negative = b[i] == '-';
+			i++;
+		}
+		if( i == to || to - i > 9 ){
+			return Integer.MIN_VALUE;
+		}
+		int value = 0;
+		for( ; i < to; i++ ){
+			if( b[i] < '0' || b[i] > '9' ){
+				return Integer.MIN_VALUE;
+			}
+			value = value * 10 + ( b[i] - '0' );
+		}
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Writes the value with dp decimals (0..18) to b from position pos, like %.{dp}f with
+	 * half-up rounding and '.' as the separator in any locale. Decimals beyond the precision of
+	 * the double may differ from %f.
+	 *
+	 * @returns {number} Position after the last written byte.
+	 */
+	static int formatFixed( double value, int dp, byte[] b, int pos ){
+		if( Double.isNaN( value ) ){
+			return formatAscii( "NaN", b, pos );
+		}
+		double magnitude = Math.abs( value );
+		if( Double.isInfinite( magnitude ) ){
+			return formatAscii( ( value < 0 ) ? "-Infinity" : "Infinity", b, pos );
+		}
+		long unit = (long) POWERS_OF_TEN[ dp ];
+
+		long integer, fraction;
+		double scaled = magnitude * POWERS_OF_TEN[ dp ];
+		if( scaled < 9e15 ){
+			// all digits in one exact long
+			long digits = Math.round( scaled );
+			integer = digits / unit;
+			fraction = digits % unit;
+		}else if( magnitude < 9e18 ){
+			// integer part and the exact remainder separately
+			integer = (long) magnitude;
+			fraction = Math.round( ( magnitude - integer ) * POWERS_OF_TEN[ dp ] );
+			if( fraction >= unit ){
+				integer++;
+				fraction -= unit;
+			}
+		}else{
+			// beyond the long range, rare enough to go through String
+			return formatAscii( String.format( Locale.ROOT, "%." + dp + "f", value ), b, pos );
+		}
+
+		if( value < 0 && ( integer != 0 || fraction != 0 ) ){
+			b[ pos++ ] = '-';
+		}
+
+		// integer part, then the fraction padded with zeros
+		pos = formatLong( integer, b, pos );
+		if( dp > 0 ){
+			b[ pos++ ] = '.';
+			for( int i = dp - 1; i >= 0; i-- ){
+				b[ pos + i ] = (byte) ( '0' + fraction % 10 );
+				fraction /= 10;
+			}
+			pos += dp;
+		}
+		return pos;
+	}
+
+	private static int formatAscii( String text, byte[] b, int pos ){
+		for( int i = 0; i < text.length(); i++ ){
+			b[ pos++ ] = (byte) text.charAt( i );
+		}
+		return pos;
+	}
+
+	/**
+	 * Writes a non-negative value to b from position pos.
+	 *
+	 * @returns {number} Position after the last written byte.
+	 */
+	static int formatLong( long value, byte[] b, int pos ){
+		int length = 1;
+		for( long v = value / 10; v != 0; v /= 10 ){
+			length++;
+		}
+		for( int i = pos + length - 1; i >= pos; i-- ){
+			b[i] = (byte) ( '0' + value % 10 );
+			value /= 10;
+		}
+		return pos + length;
+	}
+}
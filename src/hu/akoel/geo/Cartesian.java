@@ -36,27 +36,35 @@ public class Cartesian {
      */
     public LatLonEllipsoidal toLatLon( Datums datum ) {
 
-        double x = this.x;
-        double y = this.y;
-        double z = this.z;
+        double[] out = new double[3];
+        toLatLon( this.x, this.y, this.z, datum.ellipsoid.constants, out );
 
-        double a = datum.ellipsoid.a;
-        double b = datum.ellipsoid.b;
-        double f = datum.ellipsoid.f;
+        LatLonEllipsoidal point = new LatLonEllipsoidal(out[0], out[1], out[2], datum);
 
-        double e2 = 2*f - f*f;   // 1st eccentricity squared ≡ (a²-b²)/a²
-        double ε2 = e2 / (1-e2); // 2nd eccentricity squared ≡ (a²-b²)/b²
+        return point;
+    }
+    
+    /**
+     * Converts geocentric x/y/z coordinates to latitude/longitude in degrees and height in metres
+     * on the given ellipsoid, written to out[0..2]. Same formulation as toLatLon( Datums ).
+     */
+    public static void toLatLon( double x, double y, double z, EllipsoidConstants ellipsoid, double[] out ) {
+
+        double a = ellipsoid.a;
+        double e2 = ellipsoid.e2;   // 1st eccentricity squared ≡ (a²-b²)/a²
+        double ε2b = ellipsoid.ε2b; // 2nd eccentricity squared ≡ (a²-b²)/b², times b
+        double e2a = ellipsoid.e2a;
 
         double p = Math.sqrt(x*x + y*y); // distance from minor axis
         double R = Math.sqrt(p*p + z*z); // polar radius
 
         // parametric latitude (Bowring eqn 17, replacing tanβ = z·a / p·b)
-        Double tanβ = (b*z)/(a*p) * (1+ε2*b/R);
-        Double sinβ = tanβ / Math.sqrt(1+tanβ*tanβ);
-        Double cosβ = sinβ / tanβ;
+        double tanβ = ellipsoid.bOverA*z/p * (1+ε2b/R);
+        double sinβ = tanβ / Math.sqrt(1+tanβ*tanβ);
+        double cosβ = sinβ / tanβ;
 
         // geodetic latitude (Bowring eqn 18: tanφ = z+ε²bsin³β / p−e²cos³β)
-        double φ = cosβ.isNaN() ? 0 : Math.atan2(z + ε2*b*sinβ*sinβ*sinβ, p - e2*a*cosβ*cosβ*cosβ);
+        double φ = Double.isNaN(cosβ) ? 0 : Math.atan2(z + ε2b*sinβ*sinβ*sinβ, p - e2a*cosβ*cosβ*cosβ);
 
         // longitude
         double λ = Math.atan2(y, x);
@@ -65,12 +73,26 @@ public class Cartesian {
         double sinφ = Math.sin(φ);
         double cosφ = Math.cos(φ);
 
-        double ν = a / Math.sqrt(1-e2*sinφ*sinφ); // length of the normal terminated by the minor axis
-        double h = p*cosφ + z*sinφ - (a*a/ν);
+        // a²/ν, where ν is the length of the normal terminated by the minor axis
+        double a2ν = a * Math.sqrt(1-e2*sinφ*sinφ);
 
-        LatLonEllipsoidal point = new LatLonEllipsoidal(Math.toDegrees(φ), Math.toDegrees(λ), h, datum);
-
-        return point;
+        out[0] = Math.toDegrees(φ);
+        out[1] = Math.toDegrees(λ);
+        out[2] = p*cosφ + z*sinφ - a2ν;
+    }
+    
+    /**
+     * Converts arrays of geocentric x/y/z coordinates to latitude/longitude in degrees and
+     * height in metres on the given ellipsoid. The output arrays may be the input arrays.
+     */
+    public static void toLatLon( double[] x, double[] y, double[] z, EllipsoidConstants ellipsoid, double[] latitude, double[] longitude, double[] height, int count ) {
+        double[] out = new double[3];
+        for( int i = 0; i < count; i++ ){
+            toLatLon( x[i], y[i], z[i], ellipsoid, out );
+            latitude[i] = out[0];
+            longitude[i] = out[1];
+            height[i] = out[2];
+        }
     }
     
     /**
@@ -81,9 +103,19 @@ public class Cartesian {
      */
     public Cartesian applyTransform( Transformation t)   {
 
-        double x1 = this.x;
-        double y1 = this.y;
-        double z1 = this.z;
+        double[] out = new double[3];
+        applyTransform( this.x, this.y, this.z, t, out );
+        Cartesian point = new Cartesian(out[0], out[1], out[2]);
+
+        return point;
+
+    }
+    
+    /**
+     * Applies Helmert (seven-parameter) transformation t to the x/y/z coordinate, written to
+     * out[0..2].
+     */
+    public static void applyTransform( double x1, double y1, double z1, Transformation t, double[] out ) {
 
         double tx = t.tTranslation.x; 
      	double ty = t.tTranslation.y;
@@ -96,13 +128,9 @@ public class Cartesian {
         double s1 = t.rotation.s/1e6 + 1;             // normalise ppm to (s+1)
 
         // apply transform
-        double x2 = tx + x1*s1 - y1*rz + z1*ry;
-        double y2 = ty + x1*rz + y1*s1 - z1*rx;
-        double z2 = tz - x1*ry + y1*rx + z1*s1;
-        Cartesian point = new Cartesian(x2, y2, z2);
-
-        return point;
-
+        out[0] = tx + x1*s1 - y1*rz + z1*ry;
+        out[1] = ty + x1*rz + y1*s1 - z1*rx;
+        out[2] = tz - x1*ry + y1*rx + z1*s1;
     }
     
     /**
@@ -0,0 +1,67 @@
+package hu.akoel.geo;
+
+/**
+ * Immutable, reduced transformation chain built by TransformChain.compile(). It can be shared
+ * by any number of threads.
+ */
+public final class CompiledTransformChain implements CoordinateOperation {
+
+	private final TransformChain.Step[] steps;
+
+	CompiledTransformChain( TransformChain.Step[] steps ){
+		this.steps = steps;
+	}
+
+	/**
+	 * @returns {number} Number of steps left after the reduction.
+	 */
+	public int getStepCount(){
+		return steps.length;
+	}
+
+	@Override
+	public void transform( double c0, double c1, double c2, double[] out ){
+		out[0] = c0;
+		out[1] = c1;
+		out[2] = c2;
+		for( TransformChain.Step step : steps ){
+			apply( step, out );
+		}
+	}
+
+	/**
+	 * Runs the chain over the batch one step at a time, so each step is a tight loop.
+	 */
+	@Override
+	public void transform( double[] c0, double[] c1, double[] c2, int offset, int count ){
+		double[] out = new double[3];
+		for( TransformChain.Step step : steps ){
+			if( step.kind == TransformChain.Step.AFFINE ){
+				step.affine.transform( c0, c1, c2, offset, count );
+				continue;
+			}
+			for( int i = offset; i < offset + count; i++ ){
+				out[0] = c0[i];
+				out[1] = c1[i];
+				out[2] = c2[i];
+				apply( step, out );
+				c0[i] = out[0];
+				c1[i] = out[1];
+				c2[i] = out[2];
+			}
+		}
+	}
+
+	private static void apply( TransformChain.Step step, double[] p ){
+		switch( step.kind ){
+			case TransformChain.Step.TO_CARTESIAN:
+				LatLonEllipsoidal.toCartesian( p[0], p[1], p[2], step.ellipsoid, p );
+				break;
+			case TransformChain.Step.TO_GEODETIC:
+				Cartesian.toLatLon( p[0], p[1], p[2], step.ellipsoid, p );
+				break;
+			default:
+				step.affine.transform( p[0], p[1], p[2], p );
+		}
+	}
+}
@@ -0,0 +1,21 @@
+package hu.akoel.geo;
+
+/**
+ * Operation on three-component coordinates, for a single point or a batch of points.
+ *
+ * The meaning of the components depends on the coordinates: latitude, longitude (degrees) and
+ * height (metres) for geodetic points, x, y, z (metres) for ECEF points, and northing, easting
+ * and height for projected points.
+ */
+public interface CoordinateOperation {
+
+	/**
+	 * Transforms one point, written to out[0..2].
+	 */
+	void transform( double c0, double c1, double c2, double[] out );
+
+	/**
+	 * Transforms the points offset..offset+count-1 of the arrays in place.
+	 */
+	void transform( double[] c0, double[] c1, double[] c2, int offset, int count );
+}
@@ -0,0 +1,50 @@
+package hu.akoel.geo;
+
+/**
+ * Immutable datum definition of the GeodeticRegistry: an ellipsoid and the Helmert
+ * transformation from WGS84 to this datum, in the same convention as Datums. The transformation
+ * is compiled in both directions when the datum is created.
+ */
+public final class Datum {
+
+	/** Unique name of the datum */
+	public final String name;
+
+	/** EPSG code of the datum, 0 if it has none */
+	public final int epsg;
+
+	public final Ellipsoid ellipsoid;
+
+	/** Helmert parameters from WGS84 to this datum */
+	public final Transformation transformation;
+
+	/** Compiled transformations of the ECEF coordinates */
+	public final AffineTransformation fromWGS84, toWGS84;
+
+	public Datum( String name, int epsg, Ellipsoid ellipsoid, Transformation transformation ){
+		if( null == name || null == ellipsoid || null == transformation ){
+			throw new IllegalArgumentException( "Datum name, ellipsoid and transformation are required" );
+		}
+		this.name = name;
+		this.epsg = epsg;
+		this.ellipsoid = ellipsoid;
+		this.transformation = transformation;
+		this.fromWGS84 = AffineTransformation.of( transformation );
+		this.toWGS84 = AffineTransformation.of( transformation.getInverseClone() );
+	}
+
+	/**
+	 * Converts a latitude/longitude in degrees and height in metres on this datum to the given
+	 * datum, through WGS84 ECEF coordinates, written to out[0..2].
+	 */
+	public void convert( Datum toDatum, double lat, double lon, double height, double[] out ){
+		LatLonEllipsoidal.toCartesian( lat, lon, height, ellipsoid.constants, out );
+		toWGS84.transform( out[0], out[1], out[2], out );
+		toDatum.fromWGS84.transform( out[0], out[1], out[2], out );
+		Cartesian.toLatLon( out[0], out[1], out[2], toDatum.ellipsoid.constants, out );
+	}
+
+	public String toString(){
+		return name;
+	}
+}
@@ -0,0 +1,29 @@
+package hu.akoel.geo;
+
+/**
+ * Point of the Hungarian National Grid (Egységes Országos Vetület, EOV).
+ *
+ * By Hungarian convention the easting is called Y (about 420 000 - 950 000 m) and the northing
+ * is called X (about 30 000 - 370 000 m). The height, if known, is the ellipsoidal height above
+ * the GRS67 ellipsoid of HD72; the projection itself does not use it.
+ */
+public class EOVForm {
+	public double easting;
+	public double northing;
+	public Double height = null;
+
+	public EOVForm( double easting, double northing, Double height ){
+		this.easting = easting;
+		this.northing = northing;
+		this.height = height;
+	}
+
+	public EOVForm( double easting, double northing ){
+		this.easting = easting;
+		this.northing = northing;
+	}
+
+	public String toString(){
+		return new String( "Y=" + easting + "m X=" + northing + "m" + ( ( null == height ) ? "" : " h=" + height + "m" ) );
+	}
+}
@@ -0,0 +1,36 @@
+package hu.akoel.geo;
+
+/**
+ * Immutable ellipsoid definition of the GeodeticRegistry. The built-in Ellipsoids are
+ * registered as instances of this class; user-defined ellipsoids can be added next to them.
+ */
+public final class Ellipsoid {
+
+	/** Unique name of the ellipsoid */
+	public final String name;
+
+	/** EPSG code of the ellipsoid, 0 if it has none */
+	public final int epsg;
+
+	/** Semi-major axis, semi-minor axis and flattening, with the derived constants */
+	public final EllipsoidConstants constants;
+
+	public Ellipsoid( String name, int epsg, double a, double b, double f ){
+		if( null == name ){
+			throw new IllegalArgumentException( "Ellipsoid name is missing" );
+		}
+		this.name = name;
+		this.epsg = epsg;
+		this.constants = new EllipsoidConstants( a, b, f );
+	}
+
+	Ellipsoid( Ellipsoids ellipsoid ){
+		this.name = ellipsoid.name();
+		this.epsg = ellipsoid.epsg;
+		this.constants = ellipsoid.constants;
+	}
+
+	public String toString(){
+		return name;
+	}
+}
@@ -0,0 +1,45 @@
+package hu.akoel.geo;
+
+/**
+ * Immutable set of the derived constants of an ellipsoid, computed once so that the geodetic
+ * routines do not have to derive them from a, b, f for every point.
+ *
+ * Eccentricities are derived from the flattening, the same way the conversions always did.
+ * Expressions using the cached values are evaluated in a different order than the original
+ * inline formulas, so results may differ from earlier versions in the last few bits (ULPs).
+ */
+public final class EllipsoidConstants {
+
+	public final double a, b, f;
+
+	/** 1st eccentricity squared ≡ (a²-b²)/a² */
+	public final double e2;
+
+	/** 1st eccentricity */
+	public final double e;
+
+	/** 2nd eccentricity squared ≡ (a²-b²)/b² */
+	public final double ε2;
+
+	/** 1 - e² */
+	public final double oneMinusE2;
+
+	/** b / a */
+	public final double bOverA;
+
+	/** ε²·b and e²·a of Bowring's latitude formula */
+	public final double ε2b, e2a;
+
+	public EllipsoidConstants( double a, double b, double f ){
+		this.a = a;
+		this.b = b;
+		this.f = f;
+		this.e2 = 2*f - f*f;
+		this.e = Math.sqrt( e2 );
+		this.ε2 = e2 / (1-e2);
+		this.oneMinusE2 = 1 - e2;
+		this.bOverA = b / a;
+		this.ε2b = ε2 * b;
+		this.e2a = e2 * a;
+	}
+}
@@ -2,20 +2,30 @@ package hu.akoel.geo;
 
 public enum Ellipsoids{
 	
-	WGS84( 6378137, 6356752.314245, 1/298.257223563 ),
-	GRS80(6378137, 6356752.314140, 1/298.257222101 ),
-	Airy1830( 6377563.396, 6356256.909, 1/299.3249646 ),
-	AiryModified( 6377340.189, 6356034.448, 1/299.3249646 ),
-	Bessel1841( 6377397.155, 6356078.962818, 1/299.1528128 ),
-	Clarke1866( 6378206.4, 6356583.8, 1/294.978698214 ),
-	Intl1924( 6378388, 6356911.946, 1/297 ), // aka Hayford
-	WGS72( 6378135, 6356750.5, 1/298.26 );
+	WGS84( 6378137, 6356752.314245, 1/298.257223563, 7030 ),
+	GRS80(6378137, 6356752.314140, 1/298.257222101, 7019 ),
+	Airy1830( 6377563.396, 6356256.909, 1/299.3249646, 7001 ),
+	AiryModified( 6377340.189, 6356034.448, 1/299.3249646, 7002 ),
+	Bessel1841( 6377397.155, 6356078.962818, 1/299.1528128, 7004 ),
+	Clarke1866( 6378206.4, 6356583.8, 1/294.978698214, 7008 ),
+	Intl1924( 6378388, 6356911.946, 1/297, 7022 ), // aka Hayford
+	GRS67( 6378160, 6356774.516, 1/298.247167427, 7036 ), // aka IUGG67
+	WGS72( 6378135, 6356750.5, 1/298.26, 7043 );
 	
-	public double a, b, f;
-	private Ellipsoids( double a, double b, double f){
+	public final double a, b, f;
+	
+	/** EPSG code of the ellipsoid */
+	public final int epsg;
+	
+	/** Derived constants, computed once from a, b, f */
+	public final EllipsoidConstants constants;
+	
+	private Ellipsoids( double a, double b, double f, int epsg){
+		this.epsg = epsg;
 		this.a = a;
 		this.b = b;
 		this.f = f;
+		this.constants = new EllipsoidConstants( a, b, f );
 	}
 	
 	
@@ -0,0 +1,254 @@
+package hu.akoel.geo;
+
+import java.util.Arrays;
+
+/**
+ * Transforms envelopes and polygon rings with a CoordinateOperation, densifying the edges only
+ * where the transformed edge bends away from a straight line by more than a tolerance.
+ *
+ * An edge is tested by transforming its midpoint and quarter points and measuring how far
+ * they fall from the same points of the transformed chord, so a curve whose midpoint happens
+ * to lie on the chord is still caught. Edges over the tolerance are halved, level by level, and
+ * the test points of every edge of a level are transformed in one batch call; the quarter
+ * points of an edge are the midpoints of its halves, so they are transformed only once. Only
+ * the first two components of the operation are used; the third is 0 on input.
+ *
+ * Halving stops after MAX_DEPTH levels. The deviation still measured there is reported as the
+ * error of the ring, and the bounds of the result are widened by the error, at least by the
+ * tolerance, since an accepted edge may still bend that much, so they can be used as a safe
+ * query box. Rings crossing the antimeridian are not supported.
+ *
+ * @example
+ *   EnvelopeTransformation t = new EnvelopeTransformation( new UTMZoneProjection( 34, false ), 0.5 );
+ *   double[] box = t.transformEnvelope( 47.0, 19.0, 48.0, 20.0 ); // minNorthing, minEasting, maxNorthing, maxEasting
+ */
+public class EnvelopeTransformation {
+
+	private static final int MAX_DEPTH = 16;
+
+	private final CoordinateOperation operation;
+	private final double tolerance;
+
+	/**
+	 * @param operation - the transformation
+	 * @param tolerance - allowed distance of a transformed edge from its chord, in the units of
+	 *                    the output of the operation
+	 */
+	public EnvelopeTransformation( CoordinateOperation operation, double tolerance ){
+		if( !( tolerance > 0 ) ){
+			throw new IllegalArgumentException( "tolerance must be positive: " + tolerance );
+		}
+		this.operation = operation;
+		this.tolerance = tolerance;
+	}
+
+	/**
+	 * Transformed ring with its bounds.
+	 */
+	public static class Ring {
+		public final double[] c0, c1;
+		public final int size;
+		public final double min0, min1, max0, max1;
+
+		/** Largest tested distance of an edge from its chord, at least the tolerance; the bounds are widened by it */
+		public final double error;
+
+		Ring( double[] c0, double[] c1, int size, double min0, double min1, double max0, double max1, double error ){
+			this.c0 = c0;
+			this.c1 = c1;
+			this.size = size;
+			this.min0 = min0;
+			this.min1 = min1;
+			this.max0 = max0;
+			this.max1 = max1;
+			this.error = error;
+		}
+	}
+
+	/**
+	 * Transforms the envelope given by its first and second component ranges, e.g. latitude and
+	 * longitude.
+	 *
+	 * @returns {double[]} Bounds of the transformed envelope: min0, min1, max0, max1.
+	 */
+	public double[] transformEnvelope( double min0, double min1, double max0, double max1 ){
+		Ring ring = transformRing( new double[]{ min0, min0, max0, max0 }, new double[]{ min1, max1, max1, min1 }, 4 );
+		return new double[]{ ring.min0, ring.min1, ring.max0, ring.max1 };
+	}
+
+	/**
+	 * Transforms a closed ring; the last vertex connects to the first one, and may repeat it.
+	 *
+	 * @returns {Ring} The densified, transformed ring, closed the same way as the input.
+	 */
+	public Ring transformRing( double[] c0, double[] c1, int count ){
+		if( count < 2 ){
+			throw new IllegalArgumentException( "A ring needs at least two vertices" );
+		}
+		boolean repeated = c0[0] == c0[ count - 1 ] && c1[0] == c1[ count - 1 ];
+		int vertices = repeated ? count - 1 : count;
+
+		// vertices as a linked list, so midpoints can be inserted behind any of them
+		Nodes nodes = new Nodes( vertices * 4 );
+		for( int i = 0; i < vertices; i++ ){
+			nodes.add( c0[i], c1[i] );
+			nodes.next[i] = ( i + 1 ) % vertices;
+		}
+		operation.transform( nodes.t0, nodes.t1, new double[ nodes.capacity() ], 0, vertices );
+
+		// every edge is named by the node it starts from; the midpoint of an edge, source and
+		// transformed, is known from the test of its parent, on the first level it is not
+		int[] active = new int[ vertices ];
+		for( int i = 0; i < vertices; i++ ){
+			active[i] = i;
+		}
+		int activeCount = vertices;
+		double[] mid0 = null, mid1 = null, midT0 = null, midT1 = null;
+		double errorSq = tolerance * tolerance;
+
+		for( int depth = 0; depth <= MAX_DEPTH && activeCount > 0; depth++ ){
+			boolean known = null != mid0;
+			int per = known ? 2 : 3;
+			int n = activeCount * per;
+
+			// quarter points of every edge, and the midpoint where unknown
+			double[] q0 = new double[ n ];
+			double[] q1 = new double[ n ];
+			for( int k = 0; k < activeCount; k++ ){
+				int a = active[k];
+				int b = nodes.next[a];
+				int j = k * per;
+				double d0 = nodes.s0[b] - nodes.s0[a];
+				double d1 = nodes.s1[b] - nodes.s1[a];
+				q0[j] = nodes.s0[a] + d0 / 4;
+				q1[j] = nodes.s1[a] + d1 / 4;
+				q0[ j + 1 ] = nodes.s0[a] + d0 * 3 / 4;
+				q1[ j + 1 ] = nodes.s1[a] + d1 * 3 / 4;
+				if( !known ){
+					q0[ j + 2 ] = ( nodes.s0[a] + nodes.s0[b] ) / 2;
+					q1[ j + 2 ] = ( nodes.s1[a] + nodes.s1[b] ) / 2;
+				}
+			}
+			double[] t0 = q0.clone();
+			double[] t1 = q1.clone();
+			operation.transform( t0, t1, new double[ n ], 0, n );
+
+			int[] split = new int[ activeCount * 2 ];
+			double[] splitMid0 = new double[ activeCount * 2 ];
+			double[] splitMid1 = new double[ activeCount * 2 ];
+			double[] splitMidT0 = new double[ activeCount * 2 ];
+			double[] splitMidT1 = new double[ activeCount * 2 ];
+			int splitCount = 0;
+			for( int k = 0; k < activeCount; k++ ){
+				int a = active[k];
+				int b = nodes.next[a];
+				int j = k * per;
+				double m0 = known ? mid0[k] : q0[ j + 2 ];
+				double m1 = known ? mid1[k] : q1[ j + 2 ];
+				double mt0 = known ? midT0[k] : t0[ j + 2 ];
+				double mt1 = known ? midT1[k] : t1[ j + 2 ];
+
+				// distances from the same points of the transformed chord
+				double chord0 = nodes.t0[b] - nodes.t0[a];
+				double chord1 = nodes.t1[b] - nodes.t1[a];
+				double deviation = Math.max( distanceSq( mt0, mt1, nodes.t0[a] + chord0 / 2, nodes.t1[a] + chord1 / 2 ),
+						Math.max( distanceSq( t0[j], t1[j], nodes.t0[a] + chord0 / 4, nodes.t1[a] + chord1 / 4 ),
+								distanceSq( t0[ j + 1 ], t1[ j + 1 ], nodes.t0[a] + chord0 * 3 / 4, nodes.t1[a] + chord1 * 3 / 4 ) ) );
+				if( deviation <= tolerance * tolerance ){
+					continue;
+				}
+				if( depth == MAX_DEPTH ){
+					// too deep to halve, the edge stays as it is
+					errorSq = Math.max( errorSq, deviation );
+					continue;
+				}
+
+				int m = nodes.add( m0, m1 );
+				nodes.t0[m] = mt0;
+				nodes.t1[m] = mt1;
+				nodes.next[m] = b;
+				nodes.next[a] = m;
+				split[ splitCount ] = a;
+				splitMid0[ splitCount ] = q0[j];
+				splitMid1[ splitCount ] = q1[j];
+				splitMidT0[ splitCount ] = t0[j];
+				splitMidT1[ splitCount++ ] = t1[j];
+				split[ splitCount ] = m;
+				splitMid0[ splitCount ] = q0[ j + 1 ];
+				splitMid1[ splitCount ] = q1[ j + 1 ];
+				splitMidT0[ splitCount ] = t0[ j + 1 ];
+				splitMidT1[ splitCount++ ] = t1[ j + 1 ];
+			}
+			active = split;
+			activeCount = splitCount;
+			mid0 = splitMid0;
+			mid1 = splitMid1;
+			midT0 = splitMidT0;
+			midT1 = splitMidT1;
+		}
+		double error = Math.sqrt( errorSq );
+
+		// walk the ring from the first vertex
+		int size = nodes.size + ( repeated ? 1 : 0 );
+		double[] r0 = new double[ size ];
+		double[] r1 = new double[ size ];
+		double min0 = Double.POSITIVE_INFINITY, min1 = Double.POSITIVE_INFINITY;
+		double max0 = Double.NEGATIVE_INFINITY, max1 = Double.NEGATIVE_INFINITY;
+		int node = 0;
+		for( int i = 0; i < nodes.size; i++ ){
+			r0[i] = nodes.t0[ node ];
+			r1[i] = nodes.t1[ node ];
+			min0 = Math.min( min0, r0[i] );
+			min1 = Math.min( min1, r1[i] );
+			max0 = Math.max( max0, r0[i] );
+			max1 = Math.max( max1, r1[i] );
+			node = nodes.next[ node ];
+		}
+		if( repeated ){
+			r0[ size - 1 ] = r0[0];
+			r1[ size - 1 ] = r1[0];
+		}
+		return new Ring( r0, r1, size, min0 - error, min1 - error, max0 + error, max1 + error, error );
+	}
+
+	private static double distanceSq( double a0, double a1, double b0, double b1 ){
+		return ( a0 - b0 ) * ( a0 - b0 ) + ( a1 - b1 ) * ( a1 - b1 );
+	}
+
+	/**
+	 * Growable arrays of the vertices: source and transformed coordinates and the next vertex.
+	 */
+	private static final class Nodes {
+		double[] s0, s1, t0, t1;
+		int[] next;
+		int size;
+
+		Nodes( int capacity ){
+			s0 = new double[ capacity ];
+			s1 = new double[ capacity ];
+			t0 = new double[ capacity ];
+			t1 = new double[ capacity ];
+			next = new int[ capacity ];
+		}
+
+		int capacity(){
+			return s0.length;
+		}
+
+		int add( double c0, double c1 ){
+			if( size == s0.length ){
+				int capacity = s0.length * 2;
+				s0 = Arrays.copyOf( s0, capacity );
+				s1 = Arrays.copyOf( s1, capacity );
+				t0 = Arrays.copyOf( t0, capacity );
+				t1 = Arrays.copyOf( t1, capacity );
+				next = Arrays.copyOf( next, capacity );
+			}
+			s0[ size ] = c0;
+			s1[ size ] = c1;
+			t0[ size ] = c0;
+			t1[ size ] = c1;
+			return size++;
+		}
+	}
+}
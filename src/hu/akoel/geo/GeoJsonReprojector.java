@@ -0,0 +1,436 @@
+package hu.akoel.geo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Streaming rewriter of the coordinates of a GeoJSON document.
+ *
+ * The input is tokenised incrementally and only the "coordinates" of geometry objects are
+ * touched: their positions are collected into batches, converted with a CoordinateOperation
+ * and written back; every other byte is copied unchanged. Memory use does not depend on the
+ * size of the document, so multi-gigabyte FeatureCollections can be reprojected.
+ *
+ * Geometry objects are recognised by where they stand, since their "type" may come after
+ * their "coordinates": the root object, the "geometry" of the root or of a member of
+ * "features", and the members of "geometries" of any of these. "coordinates" anywhere else,
+ * e.g. in "properties" or in foreign members, is copied unchanged.
+ *
+ * GeoJSON positions are [longitude, latitude(, height)]; the operation gets them as latitude,
+ * longitude, height, and its first two results are written back in swapped order, so a
+ * UTMZoneProjection produces [easting, northing]. Positions without height stay
+ * two-dimensional, and components after the height (RFC 7946 3.1.1) are copied unchanged.
+ * "bbox" members are copied unchanged.
+ *
+ * @example
+ *   CoordinateOperation toWGS84 = TransformChain.fromGeodetic( GeodeticRegistry.getDatum( Datums.OSGB36 ) )
+ *       .convertDatum( GeodeticRegistry.getDatum( Datums.WGS84 ) ).compile();
+ *   new GeoJsonReprojector( toWGS84, 7, 3 ).reproject( in, out );
+ */
+public class GeoJsonReprojector {
+
+	private static final int BATCH = 4096;
+	private static final int BUFFER = 1 << 16;
+	private static final byte[] COORDINATES = { 'c', 'o', 'o', 'r', 'd', 'i', 'n', 'a', 't', 'e', 's' };
+	private static final byte[] GEOMETRY = { 'g', 'e', 'o', 'm', 'e', 't', 'r', 'y' };
+	private static final byte[] GEOMETRIES = { 'g', 'e', 'o', 'm', 'e', 't', 'r', 'i', 'e', 's' };
+	private static final byte[] FEATURES = { 'f', 'e', 'a', 't', 'u', 'r', 'e', 's' };
+
+	// roles of JSON values by their place in the document
+	private static final byte OTHER = 0;
+	private static final byte ROOT = 1;
+	private static final byte FEATURE = 2;
+	private static final byte GEOMETRY_OBJECT = 3;
+	private static final byte FEATURE_ARRAY = 4;
+	private static final byte GEOMETRY_ARRAY = 5;
+	private static final byte COORDINATE_ARRAY = 6;
+
+	private final CoordinateOperation operation;
+	private final int dp;
+	private final int heightDp;
+
+	/**
+	 * @param operation - conversion of the positions
+	 * @param dp        - decimals of the written horizontal coordinates
+	 * @param heightDp  - decimals of the written heights
+	 */
+	public GeoJsonReprojector( CoordinateOperation operation, int dp, int heightDp ){
+		this.operation = operation;
+		this.dp = dp;
+		this.heightDp = heightDp;
+	}
+
+	/**
+	 * Copies the UTF-8 GeoJSON document of in to out, converting the coordinates on the way.
+	 * Neither stream is closed.
+	 *
+	 * @throws IOException on I/O errors and on malformed coordinate arrays.
+	 */
+	public void reproject( InputStream in, OutputStream out ) throws IOException {
+		new Run( in, out ).run();
+	}
+
+	/**
+	 * State of one reprojection.
+	 */
+	private final class Run {
+		private final InputStream in;
+		private final OutputStream out;
+
+		private final byte[] input = new byte[ BUFFER ];
+		private int inputPosition, inputLength;
+		private final byte[] output = new byte[ BUFFER ];
+		private int outputLength;
+
+		// outside of coordinates
+		private boolean inString, escape;
+		private final byte[] key = new byte[ COORDINATES.length ];
+		private int keyLength;          // length of the member name being read, -1 if it cannot be one of interest
+		private boolean expectKey;      // the next string is a member name
+		private byte memberRole;        // role of the value of the current member
+		private byte[] roles = new byte[ 32 ];     // role of every open object, element role of every open array
+		private boolean[] objects = new boolean[ 32 ];
+		private int level;
+
+		// inside of coordinates
+		private int depth;
+		private byte[] pending = new byte[ 1024 ];  // structure between the positions of the batch
+		private int pendingLength;
+		private boolean arrayOpened;    // nothing but whitespace since the last '['
+		private boolean expectValue;    // after '[' or ',': an element must follow, not ',' or another element
+		private int arrayStart;         // pending length at the last '['
+		private boolean inPosition;
+		private final double[] component = new double[3];
+		private int components;
+		private final byte[] number = new byte[ 64 ];
+		private int numberLength;
+
+		// batch of positions
+		private final int[] slot = new int[ BATCH ];
+		private final int[] dimensions = new int[ BATCH ];
+		private final double[] c0 = new double[ BATCH ], c1 = new double[ BATCH ], c2 = new double[ BATCH ];
+		private final int[] extraEnd = new int[ BATCH ];
+		private byte[] extra = new byte[ 256 ];     // components after the height, as read, each after a ','
+		private int extraLength;
+		private int positions;
+
+		Run( InputStream in, OutputStream out ){
+			this.in = in;
+			this.out = out;
+		}
+
+		void run() throws IOException {
+			int c;
+			while( ( c = read() ) >= 0 ){
+				if( depth > 0 ){
+					coordinates( c );
+					continue;
+				}
+				if( inString ){
+					write( c );
+					if( escape ){
+						escape = false;
+						keyLength = -1;
+					}else if( c == '\\' ){
+						escape = true;
+					}else if( c == '"' ){
+						inString = false;
+						expectKey = false;
+					}else if( keyLength >= 0 ){
+						if( keyLength < key.length ){
+							key[ keyLength++ ] = (byte) c;
+						}else{
+							keyLength = -1;
+						}
+					}
+					continue;
+				}
+				switch( c ){
+					case '"':
+						inString = true;
+						keyLength = expectKey ? 0 : -1;
+						break;
+					case '{':
+						byte role = valueRole();
+						push( true, ( role == ROOT || role == FEATURE || role == GEOMETRY_OBJECT ) ? role : OTHER );
+						expectKey = true;
+						break;
+					case '[':
+						role = valueRole();
+						if( role == COORDINATE_ARRAY ){
+							// start of the coordinates value
+							depth = 1;
+							arrayOpened = true;
+							expectValue = true;
+							arrayStart = 0;
+							pend( c );
+							continue;
+						}
+						push( false, ( role == FEATURE_ARRAY ) ? FEATURE : ( role == GEOMETRY_ARRAY ) ? GEOMETRY_OBJECT : OTHER );
+						break;
+					case '}':
+					case ']':
+						if( level == 0 || objects[ level - 1 ] != ( c == '}' ) ){
+							throw new IOException( "Unbalanced GeoJSON" );
+						}
+						level--;
+						break;
+					case ',':
+						expectKey = level > 0 && objects[ level - 1 ];
+						break;
+					case ':':
+						if( level > 0 && objects[ level - 1 ] ){
+							memberRole = memberRole( roles[ level - 1 ] );
+						}
+						break;
+				}
+				write( c );
+			}
+			if( depth > 0 || inString || level > 0 ){
+				throw new IOException( "Unexpected end of GeoJSON" );
+			}
+			out.write( output, 0, outputLength );
+			outputLength = 0;
+		}
+
+		/**
+		 * @returns {byte} Role of the value starting now.
+		 */
+		private byte valueRole(){
+			if( level == 0 ){
+				return ROOT;
+			}
+			return objects[ level - 1 ] ? memberRole : roles[ level - 1 ];
+		}
+
+		/**
+		 * @returns {byte} Role of the value of the member just named, in an object of the role.
+		 */
+		private byte memberRole( byte objectRole ){
+			boolean geometry = objectRole == ROOT || objectRole == GEOMETRY_OBJECT;
+			if( geometry && isKey( COORDINATES ) ){
+				return COORDINATE_ARRAY;
+			}
+			if( geometry && isKey( GEOMETRIES ) ){
+				return GEOMETRY_ARRAY;
+			}
+			if( ( objectRole == ROOT || objectRole == FEATURE ) && isKey( GEOMETRY ) ){
+				return GEOMETRY_OBJECT;
+			}
+			if( objectRole == ROOT && isKey( FEATURES ) ){
+				return FEATURE_ARRAY;
+			}
+			return OTHER;
+		}
+
+		private boolean isKey( byte[] name ){
+			if( keyLength != name.length ){
+				return false;
+			}
+			for( int i = 0; i < keyLength; i++ ){
+				if( key[i] != name[i] ){
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private void push( boolean object, byte role ){
+			if( level == roles.length ){
+				roles = Arrays.copyOf( roles, level * 2 );
+				objects = Arrays.copyOf( objects, level * 2 );
+			}
+			objects[ level ] = object;
+			roles[ level++ ] = role;
+			memberRole = OTHER;
+		}
+
+		private void coordinates( int c ) throws IOException {
+			if( numberLength > 0 && !isNumber( c ) ){
+				endNumber();
+			}
+			if( c == '[' ){
+				if( inPosition ){
+					throw new IOException( "Array inside of a position" );
+				}
+				if( !expectValue ){
+					throw new IOException( "Missing comma in coordinates" );
+				}
+				depth++;
+				arrayStart = pendingLength;
+				arrayOpened = true;
+				pend( c );
+			}else if( c == ']' ){
+				if( expectValue && !arrayOpened ){
+					throw new IOException( "Missing element after comma in coordinates" );
+				}
+				expectValue = false;
+				depth--;
+				arrayOpened = false;
+				if( inPosition ){
+					endPosition();
+				}else{
+					pend( c );
+				}
+				if( depth == 0 ){
+					flush();
+				}
+			}else if( c == ',' ){
+				if( expectValue ){
+					throw new IOException( "Missing element before comma in coordinates" );
+				}
+				expectValue = true;
+				arrayOpened = false;
+				if( !inPosition ){
+					pend( c );
+				}
+			}else if( isSpace( c ) ){
+				if( !inPosition ){
+					pend( c );
+				}
+			}else if( isNumber( c ) ){
+				if( numberLength == 0 ){
+					if( !expectValue ){
+						throw new IOException( "Missing comma in coordinates" );
+					}
+					expectValue = false;
+				}
+				if( !inPosition ){
+					if( !arrayOpened ){
+						throw new IOException( "Number outside of a position" );
+					}
+					// the array is a position: drop its '[' and the whitespace, it is written anew
+					inPosition = true;
+					components = 0;
+					pendingLength = arrayStart;
+				}
+				if( numberLength == number.length ){
+					throw new IOException( "Number too long" );
+				}
+				number[ numberLength++ ] = (byte) c;
+			}else{
+				throw new IOException( "Unexpected character in coordinates: " + (char) c );
+			}
+		}
+
+		private void endNumber() throws IOException {
+			double value = AsciiNumbers.parseDouble( number, 0, numberLength );
+			if( Double.isNaN( value ) ){
+				throw new IOException( "Invalid number in coordinates" );
+			}
+			if( components >= 3 ){
+				// not converted, kept as written
+				while( extra.length - extraLength < numberLength + 1 ){
+					extra = Arrays.copyOf( extra, extra.length * 2 );
+				}
+				extra[ extraLength++ ] = ',';
+				System.arraycopy( number, 0, extra, extraLength, numberLength );
+				extraLength += numberLength;
+				components++;
+			}else{
+				component[ components++ ] = value;
+			}
+			numberLength = 0;
+		}
+
+		private void endPosition() throws IOException {
+			inPosition = false;
+			if( components < 2 ){
+				throw new IOException( "Position with less than two components" );
+			}
+			slot[ positions ] = pendingLength;
+			dimensions[ positions ] = components;
+			c0[ positions ] = component[1];
+			c1[ positions ] = component[0];
+			c2[ positions ] = ( components >= 3 ) ? component[2] : 0;
+			extraEnd[ positions ] = extraLength;
+			if( ++positions == BATCH ){
+				flush();
+			}
+		}
+
+		/**
+		 * Converts the batch and writes it out with the structure around it.
+		 */
+		private void flush() throws IOException {
+			operation.transform( c0, c1, c2, 0, positions );
+			int from = 0;
+			int extraFrom = 0;
+			for( int i = 0; i < positions; i++ ){
+				write( pending, from, slot[i] );
+				from = slot[i];
+
+				ensureOutput( 96 );
+				output[ outputLength++ ] = '[';
+				outputLength = AsciiNumbers.formatFixed( c1[i], dp, output, outputLength );
+				output[ outputLength++ ] = ',';
+				outputLength = AsciiNumbers.formatFixed( c0[i], dp, output, outputLength );
+				if( dimensions[i] >= 3 ){
+					output[ outputLength++ ] = ',';
+					outputLength = AsciiNumbers.formatFixed( c2[i], heightDp, output, outputLength );
+				}
+				write( extra, extraFrom, extraEnd[i] );
+				extraFrom = extraEnd[i];
+				write( ']' );
+			}
+			write( pending, from, pendingLength );
+			pendingLength = 0;
+			arrayStart = 0;
+			extraLength = 0;
+			positions = 0;
+		}
+
+		private void pend( int c ){
+			if( pendingLength == pending.length ){
+				byte[] grown = new byte[ pending.length * 2 ];
+				System.arraycopy( pending, 0, grown, 0, pendingLength );
+				pending = grown;
+			}
+			pending[ pendingLength++ ] = (byte) c;
+		}
+
+		private int read() throws IOException {
+			if( inputPosition == inputLength ){
+				inputLength = in.read( input, 0, input.length );
+				inputPosition = 0;
+				if( inputLength <= 0 ){
+					inputLength = 0;
+					return -1;
+				}
+			}
+			return input[ inputPosition++ ] & 0xff;
+		}
+
+		private void write( int c ) throws IOException {
+			ensureOutput( 1 );
+			output[ outputLength++ ] = (byte) c;
+		}
+
+		private void write( byte[] b, int from, int to ) throws IOException {
+			while( from < to ){
+				ensureOutput( 1 );
+				int length = Math.min( to - from, output.length - outputLength );
+				System.arraycopy( b, from, output, outputLength, length );
+				outputLength += length;
+				from += length;
+			}
+		}
+
+		private void ensureOutput( int length ) throws IOException {
+			if( output.length - outputLength < length ){
+				out.write( output, 0, outputLength );
+				outputLength = 0;
+			}
+		}
+	}
+
+	private static boolean isSpace( int c ){
+		return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+	}
+
+	private static boolean isNumber( int c ){
+		return ( c >= '0' && c <= '9' ) || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E';
+	}
+}
@@ -0,0 +1,190 @@
+package hu.akoel.geo;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Registry of ellipsoid and datum definitions, looked up by name or EPSG code.
+ *
+ * The built-in Ellipsoids and Datums are registered under their enum name and EPSG code, and
+ * user-defined definitions can be added next to them. Definitions cannot be replaced or removed.
+ *
+ * Registration copies the current tables and publishes the new, immutable set through a single
+ * volatile field. Lookups therefore take no lock and never wait for a registration; EPSG lookups
+ * are a binary search in a primitive array and do not allocate.
+ *
+ * @example
+ *   GeodeticRegistry.register( new Datum( "MyLocal", 0, GeodeticRegistry.getEllipsoid( 7022 ), transformation ) );
+ *   Datum d = GeodeticRegistry.getDatum( "MyLocal" );
+ */
+public final class GeodeticRegistry {
+
+	private static final Ellipsoid[] BUILT_IN_ELLIPSOIDS = new Ellipsoid[ Ellipsoids.values().length ];
+	private static final Datum[] BUILT_IN_DATUMS = new Datum[ Datums.values().length ];
+
+	private static volatile Tables tables;
+
+	static{
+		Tables seed = new Tables();
+		for( Ellipsoids e : Ellipsoids.values() ){
+			BUILT_IN_ELLIPSOIDS[ e.ordinal() ] = new Ellipsoid( e );
+			seed = seed.with( BUILT_IN_ELLIPSOIDS[ e.ordinal() ] );
+		}
+		for( Datums d : Datums.values() ){
+			BUILT_IN_DATUMS[ d.ordinal() ] = new Datum( d.name(), d.epsg, BUILT_IN_ELLIPSOIDS[ d.ellipsoid.ordinal() ], d.transformation );
+			seed = seed.with( BUILT_IN_DATUMS[ d.ordinal() ] );
+		}
+		tables = seed;
+	}
+
+	private GeodeticRegistry(){
+	}
+
+	public static Ellipsoid getEllipsoid( Ellipsoids ellipsoid ){
+		return BUILT_IN_ELLIPSOIDS[ ellipsoid.ordinal() ];
+	}
+
+	/**
+	 * @returns {Ellipsoid} The ellipsoid registered under the name, or null.
+	 */
+	public static Ellipsoid getEllipsoid( String name ){
+		return tables.ellipsoidsByName.get( name );
+	}
+
+	/**
+	 * @returns {Ellipsoid} The ellipsoid registered under the EPSG code, or null.
+	 */
+	public static Ellipsoid getEllipsoid( int epsg ){
+		Tables t = tables;
+		int i = Arrays.binarySearch( t.ellipsoidCodes, epsg );
+		return ( i < 0 ) ? null : t.ellipsoidsByCode[i];
+	}
+
+	public static Datum getDatum( Datums datum ){
+		return BUILT_IN_DATUMS[ datum.ordinal() ];
+	}
+
+	/**
+	 * @returns {Datum} The datum registered under the name, or null.
+	 */
+	public static Datum getDatum( String name ){
+		return tables.datumsByName.get( name );
+	}
+
+	/**
+	 * @returns {Datum} The datum registered under the EPSG code, or null.
+	 */
+	public static Datum getDatum( int epsg ){
+		Tables t = tables;
+		int i = Arrays.binarySearch( t.datumCodes, epsg );
+		return ( i < 0 ) ? null : t.datumsByCode[i];
+	}
+
+	/**
+	 * Registers a user-defined ellipsoid.
+	 *
+	 * @throws IllegalArgumentException if its name or EPSG code is already taken.
+	 */
+	public static synchronized void register( Ellipsoid ellipsoid ){
+		tables = tables.with( ellipsoid );
+	}
+
+	/**
+	 * Registers a user-defined datum, together with its ellipsoid if that is not registered yet.
+	 *
+	 * @throws IllegalArgumentException if its name or EPSG code is already taken, or another
+	 *                                  ellipsoid is registered under the name of its ellipsoid.
+	 */
+	public static synchronized void register( Datum datum ){
+		Tables t = tables;
+		Ellipsoid registered = t.ellipsoidsByName.get( datum.ellipsoid.name );
+		if( null == registered ){
+			t = t.with( datum.ellipsoid );
+		}else if( registered != datum.ellipsoid ){
+			throw new IllegalArgumentException( "Another ellipsoid is registered as " + datum.ellipsoid.name );
+		}
+		tables = t.with( datum );
+	}
+
+	/**
+	 * One immutable version of the registry content.
+	 */
+	private static final class Tables {
+		final Map<String, Ellipsoid> ellipsoidsByName;
+		final int[] ellipsoidCodes;
+		final Ellipsoid[] ellipsoidsByCode;
+		final Map<String, Datum> datumsByName;
+		final int[] datumCodes;
+		final Datum[] datumsByCode;
+
+		Tables(){
+			this( new HashMap<String, Ellipsoid>(), new int[0], new Ellipsoid[0], new HashMap<String, Datum>(), new int[0], new Datum[0] );
+		}
+
+		private Tables( Map<String, Ellipsoid> ellipsoidsByName, int[] ellipsoidCodes, Ellipsoid[] ellipsoidsByCode, Map<String, Datum> datumsByName, int[] datumCodes, Datum[] datumsByCode ){
+			this.ellipsoidsByName = ellipsoidsByName;
+			this.ellipsoidCodes = ellipsoidCodes;
+			this.ellipsoidsByCode = ellipsoidsByCode;
+			this.datumsByName = datumsByName;
+			this.datumCodes = datumCodes;
+			this.datumsByCode = datumsByCode;
+		}
+
+		Tables with( Ellipsoid ellipsoid ){
+			if( ellipsoidsByName.containsKey( ellipsoid.name ) ){
+				throw new IllegalArgumentException( "Ellipsoid already registered: " + ellipsoid.name );
+			}
+			Map<String, Ellipsoid> byName = new HashMap<String, Ellipsoid>( ellipsoidsByName );
+			byName.put( ellipsoid.name, ellipsoid );
+
+			int[] codes = ellipsoidCodes;
+			Ellipsoid[] byCode = ellipsoidsByCode;
+			if( ellipsoid.epsg != 0 ){
+				int i = Arrays.binarySearch( codes, ellipsoid.epsg );
+				if( i >= 0 ){
+					throw new IllegalArgumentException( "Ellipsoid already registered: EPSG:" + ellipsoid.epsg );
+				}
+				i = -i - 1;
+				codes = insert( ellipsoidCodes, i, ellipsoid.epsg );
+				byCode = new Ellipsoid[ codes.length ];
+				System.arraycopy( ellipsoidsByCode, 0, byCode, 0, i );
+				System.arraycopy( ellipsoidsByCode, i, byCode, i + 1, ellipsoidsByCode.length - i );
+				byCode[i] = ellipsoid;
+			}
+			return new Tables( byName, codes, byCode, datumsByName, datumCodes, datumsByCode );
+		}
+
+		Tables with( Datum datum ){
+			if( datumsByName.containsKey( datum.name ) ){
+				throw new IllegalArgumentException( "Datum already registered: " + datum.name );
+			}
+			Map<String, Datum> byName = new HashMap<String, Datum>( datumsByName );
+			byName.put( datum.name, datum );
+
+			int[] codes = datumCodes;
+			Datum[] byCode = datumsByCode;
+			if( datum.epsg != 0 ){
+				int i = Arrays.binarySearch( codes, datum.epsg );
+				if( i >= 0 ){
+					throw new IllegalArgumentException( "Datum already registered: EPSG:" + datum.epsg );
+				}
+				i = -i - 1;
+				codes = insert( datumCodes, i, datum.epsg );
+				byCode = new Datum[ codes.length ];
+				System.arraycopy( datumsByCode, 0, byCode, 0, i );
+				System.arraycopy( datumsByCode, i, byCode, i + 1, datumsByCode.length - i );
+				byCode[i] = datum;
+			}
+			return new Tables( ellipsoidsByName, ellipsoidCodes, ellipsoidsByCode, byName, codes, byCode );
+		}
+
+		private static int[] insert( int[] codes, int i, int code ){
+			int[] result = new int[ codes.length + 1 ];
+			System.arraycopy( codes, 0, result, 0, i );
+			System.arraycopy( codes, i, result, i + 1, codes.length - i );
+			result[i] = code;
+			return result;
+		}
+	}
+}
@@ -0,0 +1,29 @@
+package hu.akoel.geo;
+
+/**
+ * Geodetic point of the Hungarian Datum 1972 (HD72, GRS67 ellipsoid), the datum under EOV.
+ */
+public class HD72Form {
+	public Double latitude;
+	public Double longitude;
+	public Double altitude = null;
+
+	public HD72Form( Double latitude, Double longitude, Double altitude ){
+		this.latitude = latitude;
+		this.longitude = longitude;
+		this.altitude = altitude;
+	}
+
+	public HD72Form( Double latitude, Double longitude ){
+		this.latitude = latitude;
+		this.longitude = longitude;
+	}
+
+	public String toDegree(){
+		int dp = 6;
+		return new String(
+				Dms.toLat( latitude, dp) + "° " +
+		        Dms.toLon( longitude, dp) + "°" +
+		        ( ( null == altitude ) ? "" : " alt: " + Dms.toAlt(altitude, dp) ) );
+	}
+}
@@ -0,0 +1,324 @@
+package hu.akoel.geo;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Approximate, fast version of a projection inside a region, by bilinear interpolation in a
+ * grid of exactly projected points.
+ *
+ * The region is cut into square tiles of tileSize degrees, built when first used and kept in a
+ * least-recently-used cache of maxTiles tiles. A tile starts with 8 x 8 cells and is refined
+ * until its error estimate is within maxError. A tile that would need more than 1024 x 1024
+ * cells falls back to the exact projection. Points outside of the region are projected exactly.
+ *
+ * A tile of n x n cells holds 2 (n + 1)^2 doubles, from 1.3 KB at 8 x 8 cells up to 16.8 MB
+ * at 1024 x 1024, so maxTiles bounds the number of tiles, not the memory: size it for the finest
+ * tiles maxError may need, up to maxTiles times 16.8 MB.
+ *
+ * The estimate is the larger of two figures. One is the error formula of bilinear
+ * interpolation, (|f_uu| + |f_vv|) / 8 in cell units, with the second derivatives estimated
+ * from the second differences of the grid nodes and a margin of 50 % for their change inside
+ * a cell. The other is the error measured against the exact projection at the centre and the
+ * edge midpoints of every cell. maxError is therefore a target of the estimate, not a bound of
+ * the error: the exact projection is only known at samples, so a projection with kinks, jumps
+ * or fast changing curvature inside a cell may exceed it between them. For UTM the measured
+ * error stays below the estimate.
+ *
+ * Only the first two components are interpolated, the height is left unchanged, so the exact
+ * projection must not depend on the height, as UTMZoneProjection does not.
+ *
+ * @example
+ *   CoordinateOperation fast = new InterpolatedProjection( new UTMZoneProjection( 34, false ), 45.5, 16.0, 48.7, 23.0, 0.25, 0.001, 64 );
+ *   fast.transform( lat, lon, height, 0, lat.length ); // northing, easting, estimated within 1 mm
+ */
+public class InterpolatedProjection implements CoordinateOperation {
+
+	private static final int INITIAL_CELLS = 8;
+	private static final int MAX_CELLS = 1024;
+
+	// margin on the second differences, for the change of the second derivatives inside a cell
+	private static final double CURVATURE_MARGIN = 1.5;
+
+	private final CoordinateOperation exact;
+	private final double minLat, minLon, maxLat, maxLon;
+	private final double tileSize;
+	private final int rows, columns;
+	private final double maxError;
+	private final Map<Integer, Tile> cache;
+
+	// the tile of the previous point, nearby points skip the cache
+	private volatile Tile last;
+
+	/**
+	 * @param exact    - the projection to approximate: latitude, longitude to c0, c1
+	 * @param tileSize - side of a tile in degrees
+	 * @param maxError - target of the estimated interpolation error, in the units of the projection
+	 * @param maxTiles - number of tiles kept in memory, each up to 16.8 MB
+	 */
+	public InterpolatedProjection( CoordinateOperation exact, double minLat, double minLon, double maxLat, double maxLon, double tileSize, double maxError, final int maxTiles ){
+		if( !( minLat < maxLat && minLon < maxLon && tileSize > 0 && maxError > 0 && maxTiles > 0 ) ){
+			throw new IllegalArgumentException( "Invalid interpolation region or parameters" );
+		}
+		this.exact = exact;
+		this.minLat = minLat;
+		this.minLon = minLon;
+		this.maxLat = maxLat;
+		this.maxLon = maxLon;
+		this.tileSize = tileSize;
+		this.rows = (int) Math.ceil( ( maxLat - minLat ) / tileSize );
+		this.columns = (int) Math.ceil( ( maxLon - minLon ) / tileSize );
+		this.maxError = maxError;
+		this.cache = new LinkedHashMap<Integer, Tile>( 16, 0.75f, true ){
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry( Map.Entry<Integer, Tile> eldest ){
+				return size() > maxTiles;
+			}
+		};
+	}
+
+	/**
+	 * @returns {number} The target of the error estimate of every tile; an estimate, not a
+	 *                   guaranteed bound of the interpolation error.
+	 */
+	public double getMaxError(){
+		return maxError;
+	}
+
+	/**
+	 * @returns {number} Number of tiles in the cache.
+	 */
+	public int getTileCount(){
+		synchronized( cache ){
+			return cache.size();
+		}
+	}
+
+	@Override
+	public void transform( double latitude, double longitude, double height, double[] out ){
+		Tile tile = tile( latitude, longitude );
+		if( null == tile || null == tile.v0 ){
+			exact.transform( latitude, longitude, height, out );
+			out[2] = height;
+			return;
+		}
+		tile.interpolate( latitude, longitude, out );
+		out[2] = height;
+	}
+
+	@Override
+	public void transform( double[] latitude, double[] longitude, double[] height, int offset, int count ){
+		double[] out = new double[3];
+		for( int i = offset; i < offset + count; i++ ){
+			double lat = latitude[i];
+			double lon = longitude[i];
+			Tile tile = last;
+			if( null == tile || !tile.contains( lat, lon ) ){
+				tile = tile( lat, lon );
+			}
+			if( null == tile || null == tile.v0 ){
+				exact.transform( lat, lon, 0, out );
+			}else{
+				tile.interpolate( lat, lon, out );
+			}
+			latitude[i] = out[0];
+			longitude[i] = out[1];
+		}
+	}
+
+	/**
+	 * @returns {Tile} The tile of the point, built if not cached, or null outside of the region.
+	 */
+	private Tile tile( double lat, double lon ){
+		if( !( lat >= minLat && lat <= maxLat && lon >= minLon && lon <= maxLon ) ){
+			return null;
+		}
+		Tile tile = last;
+		if( null != tile && tile.contains( lat, lon ) ){
+			return tile;
+		}
+		int row = Math.min( rows - 1, (int) ( ( lat - minLat ) / tileSize ) );
+		int column = Math.min( columns - 1, (int) ( ( lon - minLon ) / tileSize ) );
+		Integer key = row * columns + column;
+		synchronized( cache ){
+			tile = cache.get( key );
+		}
+		if( null == tile ){
+			// built outside of the lock; two threads may build the same tile, the result is equal
+			tile = new Tile( minLat + row * tileSize, minLon + column * tileSize );
+			synchronized( cache ){
+				cache.put( key, tile );
+			}
+		}
+		last = tile;
+		return tile;
+	}
+
+	/**
+	 * Immutable grid of one tile. v0 and v1 are null if the tile is projected exactly.
+	 */
+	private final class Tile {
+		final double lat0, lon0;
+		final int cells;
+		final double inverseStep;
+		final double[] v0, v1;
+
+		Tile( double lat0, double lon0 ){
+			this.lat0 = lat0;
+			this.lon0 = lon0;
+
+			int n = INITIAL_CELLS;
+			double[][] grid = sample( n );
+			double error = estimate( n, grid );
+			while( error > maxError ){
+				// the error falls with the square of the cell size, jump to the expected resolution
+				int factor = 2;
+				while( factor * factor * maxError < error ){
+					factor *= 2;
+				}
+				n *= factor;
+				if( n > MAX_CELLS ){
+					grid = null;
+					break;
+				}
+				grid = sample( n );
+				error = estimate( n, grid );
+			}
+			this.cells = n;
+			this.inverseStep = n / tileSize;
+			this.v0 = ( null == grid ) ? null : grid[0];
+			this.v1 = ( null == grid ) ? null : grid[1];
+		}
+
+		boolean contains( double lat, double lon ){
+			return lat >= lat0 && lat < lat0 + tileSize && lon >= lon0 && lon < lon0 + tileSize;
+		}
+
+		void interpolate( double lat, double lon, double[] out ){
+			InterpolatedProjection.interpolate( ( lat - lat0 ) * inverseStep, ( lon - lon0 ) * inverseStep, cells, v0, v1, out );
+		}
+
+		/**
+		 * Projects the (n + 1) x (n + 1) nodes of an n x n grid in one batch.
+		 */
+		private double[][] sample( int n ){
+			int size = ( n + 1 ) * ( n + 1 );
+			double[] lat = new double[ size ];
+			double[] lon = new double[ size ];
+			double step = tileSize / n;
+			for( int y = 0, i = 0; y <= n; y++ ){
+				for( int x = 0; x <= n; x++, i++ ){
+					lat[i] = lat0 + y * step;
+					lon[i] = lon0 + x * step;
+				}
+			}
+			exact.transform( lat, lon, new double[ size ], 0, size );
+			return new double[][]{ lat, lon };
+		}
+
+		/**
+		 * @returns {number} Error estimate of the n x n grid, see the class description.
+		 */
+		private double estimate( int n, double[][] grid ){
+			// the curvature needs no exact projection, so probe only grids it accepts
+			double curvature = curvature( n, grid );
+			return ( curvature > maxError ) ? curvature : Math.max( curvature, probe( n, grid ) );
+		}
+
+		/**
+		 * @returns {number} Interpolation error of the n x n grid estimated from the largest second
+		 *                   differences of its nodes along both axes, with the margin.
+		 */
+		private double curvature( int n, double[][] grid ){
+			double[] v0 = grid[0];
+			double[] v1 = grid[1];
+			int row = n + 1;
+			double uu = 0, vv = 0;
+			for( int y = 0; y <= n; y++ ){
+				for( int x = 0; x <= n; x++ ){
+					int i = y * row + x;
+					if( x > 0 && x < n ){
+						double d0 = v0[ i - 1 ] - 2 * v0[i] + v0[ i + 1 ];
+						double d1 = v1[ i - 1 ] - 2 * v1[i] + v1[ i + 1 ];
+						uu = Math.max( uu, d0*d0 + d1*d1 );
+					}
+					if( y > 0 && y < n ){
+						double d0 = v0[ i - row ] - 2 * v0[i] + v0[ i + row ];
+						double d1 = v1[ i - row ] - 2 * v1[i] + v1[ i + row ];
+						vv = Math.max( vv, d0*d0 + d1*d1 );
+					}
+				}
+			}
+			return CURVATURE_MARGIN * ( Math.sqrt( uu ) + Math.sqrt( vv ) ) / 8;
+		}
+
+		/**
+		 * @returns {number} Largest distance between the interpolated and the exact projection at
+		 *                   the centre and at the edge midpoints of the cells of an n x n grid.
+		 */
+		private double probe( int n, double[][] grid ){
+			double step = tileSize / n;
+			int size = 3 * n * ( n + 1 );
+			double[] fy = new double[ size ];
+			double[] fx = new double[ size ];
+			int count = 0;
+			for( int y = 0; y <= n; y++ ){
+				for( int x = 0; x <= n; x++ ){
+					if( x < n ){
+						// midpoint of the lower edge
+						fy[ count ] = y;
+						fx[ count++ ] = x + 0.5;
+					}
+					if( y < n ){
+						// midpoint of the left edge
+						fy[ count ] = y + 0.5;
+						fx[ count++ ] = x;
+					}
+					if( x < n && y < n ){
+						fy[ count ] = y + 0.5;
+						fx[ count++ ] = x + 0.5;
+					}
+				}
+			}
+			double[] e0 = new double[ count ];
+			double[] e1 = new double[ count ];
+			for( int i = 0; i < count; i++ ){
+				e0[i] = lat0 + fy[i] * step;
+				e1[i] = lon0 + fx[i] * step;
+			}
+			exact.transform( e0, e1, new double[ count ], 0, count );
+
+			double[] out = new double[3];
+			double max = 0;
+			for( int i = 0; i < count; i++ ){
+				InterpolatedProjection.interpolate( fy[i], fx[i], n, grid[0], grid[1], out );
+				double d0 = out[0] - e0[i];
+				double d1 = out[1] - e1[i];
+				max = Math.max( max, Math.sqrt( d0*d0 + d1*d1 ) );
+			}
+			return max;
+		}
+	}
+
+	/**
+	 * Bilinear interpolation at the grid position fy, fx (in cells) of an n x n grid.
+	 */
+	private static void interpolate( double fy, double fx, int n, double[] v0, double[] v1, double[] out ){
+		int iy = Math.min( n - 1, (int) fy );
+		int ix = Math.min( n - 1, (int) fx );
+		fy -= iy;
+		fx -= ix;
+
+		int a = iy * ( n + 1 ) + ix;
+		int c = a + n + 1;
+		out[0] = bilinear( v0[a], v0[ a + 1 ], v0[c], v0[ c + 1 ], fx, fy );
+		out[1] = bilinear( v1[a], v1[ a + 1 ], v1[c], v1[ c + 1 ], fx, fy );
+	}
+
+	private static double bilinear( double a, double b, double c, double d, double fx, double fy ){
+		double bottom = a + fx * ( b - a );
+		return bottom + fy * ( c + fx * ( d - c ) - bottom );
+	}
+}
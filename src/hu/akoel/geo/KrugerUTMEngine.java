@@ -0,0 +1,177 @@
+package hu.akoel.geo;
+
+/**
+ * UTM projection by the Krüger series to the sixth order of the third flattening, as given by
+ * Karney (2011), "Transverse Mercator with an accuracy of a few nanometers".
+ *
+ * Within a few degrees of the central meridian the error is below a micrometre, so the engine
+ * serves as the reference the other engines are measured against. Zones, bands and the false
+ * northing follow WGS84UTM, so the results of the two engines are directly comparable.
+ */
+public final class KrugerUTMEngine implements UTMProjectionEngine {
+
+	public static final String NAME = "kruger";
+
+	private static final double K0 = 0.9996;
+	private static final double FALSE_EASTING = 500000;
+
+	private final double e;
+	private final double oneMinusE2;
+
+	/** k0 times the rectifying radius */
+	private final double k0A;
+
+	private final double[] α = new double[7];
+	private final double[] β = new double[7];
+
+	public KrugerUTMEngine(){
+		EllipsoidConstants wgs84 = Ellipsoids.WGS84.constants;
+		e = wgs84.e;
+		oneMinusE2 = wgs84.oneMinusE2;
+
+		double n = wgs84.f / ( 2 - wgs84.f );
+		double n2 = n*n, n3 = n2*n, n4 = n3*n, n5 = n4*n, n6 = n5*n;
+		k0A = K0 * wgs84.a / ( 1 + n ) * ( 1 + n2/4 + n4/64 + n6/256 );
+
+		α[1] = n/2 - 2*n2/3 + 5*n3/16 + 41*n4/180 - 127*n5/288 + 7891*n6/37800;
+		α[2] = 13*n2/48 - 3*n3/5 + 557*n4/1440 + 281*n5/630 - 1983433*n6/1935360;
+		α[3] = 61*n3/240 - 103*n4/140 + 15061*n5/26880 + 167603*n6/181440;
+		α[4] = 49561*n4/161280 - 179*n5/168 + 6601661*n6/7257600;
+		α[5] = 34729*n5/80640 - 3418889*n6/1995840;
+		α[6] = 212378941*n6/319334400;
+
+		β[1] = n/2 - 2*n2/3 + 37*n3/96 - n4/360 - 81*n5/512 + 96199*n6/604800;
+		β[2] = n2/48 + n3/15 - 437*n4/1440 + 46*n5/105 - 1118711*n6/3870720;
+		β[3] = 17*n3/480 - 37*n4/840 - 209*n5/4480 + 5569*n6/90720;
+		β[4] = 4397*n4/161280 - 11*n5/504 - 830251*n6/7257600;
+		β[5] = 4583*n5/161280 - 108847*n6/3991680;
+		β[6] = 20648693*n6/638668800;
+	}
+
+	@Override
+	public String getName(){
+		return NAME;
+	}
+
+	@Override
+	public UTMForm toUTM( double latitude, double longitude ){
+		UTMForm utmForm = new UTMForm( 0, ' ', 0, 0 );
+		toUTM( latitude, longitude, utmForm );
+		return utmForm;
+	}
+
+	@Override
+	public void toUTM( double latitude, double longitude, UTMForm utmForm ){
+		double[] out = new double[2];
+		int zone = WGS84UTM.getZone( longitude );
+		char letter = WGS84UTM.getLetter( latitude );
+		project( latitude, longitude, zone, out );
+		utmForm.zone = zone;
+		utmForm.letter = letter;
+		utmForm.easting = out[0];
+		utmForm.northing = out[1] + WGS84UTM.getFalseNorthing( letter );
+	}
+
+	@Override
+	public void toUTM( double[] latitude, double[] longitude, int[] zone, char[] letter, double[] easting, double[] northing, int offset, int count ){
+		double[] out = new double[2];
+		for( int i = offset; i < offset + count; i++ ){
+			int z = WGS84UTM.getZone( longitude[i] );
+			char l = WGS84UTM.getLetter( latitude[i] );
+			project( latitude[i], longitude[i], z, out );
+			zone[i] = z;
+			letter[i] = l;
+			easting[i] = out[0];
+			northing[i] = out[1] + WGS84UTM.getFalseNorthing( l );
+		}
+	}
+
+	@Override
+	public WGS84Form toWGS84( UTMForm utmForm ){
+		double[] out = new double[2];
+		toWGS84( utmForm.zone, utmForm.letter, utmForm.easting, utmForm.northing, out );
+		return new WGS84Form( out[0], out[1] );
+	}
+
+	@Override
+	public void toWGS84( int zone, char letter, double easting, double northing, double[] out ){
+		unproject( easting, northing - WGS84UTM.getFalseNorthing( letter ), zone, out );
+	}
+
+	@Override
+	public void toWGS84( int[] zone, char[] letter, double[] easting, double[] northing, double[] latitude, double[] longitude, int offset, int count ){
+		double[] out = new double[2];
+		for( int i = offset; i < offset + count; i++ ){
+			unproject( easting[i], northing[i] - WGS84UTM.getFalseNorthing( letter[i] ), zone[i], out );
+			latitude[i] = out[0];
+			longitude[i] = out[1];
+		}
+	}
+
+	/**
+	 * Easting and northing without false northing into out[0..1].
+	 */
+	private void project( double latitude, double longitude, int zone, double[] out ){
+		double φ = Math.toRadians( latitude );
+		double λ = Math.toRadians( longitude - ( 6*zone - 183 ) );
+
+		// conformal latitude
+		double τ = Math.tan( φ );
+		double σ = Math.sinh( e * atanh( e * τ / Math.sqrt( 1 + τ*τ ) ) );
+		double τʹ = τ * Math.sqrt( 1 + σ*σ ) - σ * Math.sqrt( 1 + τ*τ );
+
+		double cosλ = Math.cos( λ );
+		double ξʹ = Math.atan2( τʹ, cosλ );
+		double ηʹ = asinh( Math.sin( λ ) / Math.sqrt( τʹ*τʹ + cosλ*cosλ ) );
+
+		double ξ = ξʹ, η = ηʹ;
+		for( int j = 1; j <= 6; j++ ){
+			ξ += α[j] * Math.sin( 2*j*ξʹ ) * Math.cosh( 2*j*ηʹ );
+			η += α[j] * Math.cos( 2*j*ξʹ ) * Math.sinh( 2*j*ηʹ );
+		}
+		out[0] = k0A * η + FALSE_EASTING;
+		out[1] = k0A * ξ;
+	}
+
+	/**
+	 * Latitude and longitude in degrees into out[0..1], from a northing without false northing.
+	 */
+	private void unproject( double easting, double north, int zone, double[] out ){
+		double ξ = north / k0A;
+		double η = ( easting - FALSE_EASTING ) / k0A;
+
+		double ξʹ = ξ, ηʹ = η;
+		for( int j = 1; j <= 6; j++ ){
+			ξʹ -= β[j] * Math.sin( 2*j*ξ ) * Math.cosh( 2*j*η );
+			ηʹ -= β[j] * Math.cos( 2*j*ξ ) * Math.sinh( 2*j*η );
+		}
+
+		double sinhηʹ = Math.sinh( ηʹ );
+		double cosξʹ = Math.cos( ξʹ );
+		double τʹ = Math.sin( ξʹ ) / Math.sqrt( sinhηʹ*sinhηʹ + cosξʹ*cosξʹ );
+
+		// Newton iteration for the geodetic latitude from the conformal one
+		double τ = τʹ;
+		for( int i = 0; i < 10; i++ ){
+			double σ = Math.sinh( e * atanh( e * τ / Math.sqrt( 1 + τ*τ ) ) );
+			double τi = τ * Math.sqrt( 1 + σ*σ ) - σ * Math.sqrt( 1 + τ*τ );
+			double δτ = ( τʹ - τi ) / Math.sqrt( 1 + τi*τi ) * ( 1 + oneMinusE2*τ*τ ) / ( oneMinusE2 * Math.sqrt( 1 + τ*τ ) );
+			τ += δτ;
+			if( Math.abs( δτ ) < 1e-13 ){
+				break;
+			}
+		}
+
+		out[0] = Math.toDegrees( Math.atan( τ ) );
+		out[1] = Math.toDegrees( Math.atan2( sinhηʹ, cosξʹ ) ) + ( 6*zone - 183 );
+	}
+
+	private static double atanh( double x ){
+		return 0.5 * Math.log( ( 1 + x ) / ( 1 - x ) );
+	}
+
+	private static double asinh( double x ){
+		double y = Math.log( Math.abs( x ) + Math.sqrt( x*x + 1 ) );
+		return ( x < 0 ) ? -y : y;
+	}
+}
@@ -85,28 +85,49 @@ public class LatLonEllipsoidal {
      */
     public Cartesian toCartesian() {
 
-        double φ = Math.toRadians( this.lat );
-        double λ = Math.toRadians( this.lon );
-        double h = this.height; // height above ellipsoid
+        double[] out = new double[3];
+        toCartesian( this.lat, this.lon, this.height, this.datum.ellipsoid.constants, out );
 
-        double a = this.datum.ellipsoid.a;
-        double f = this.datum.ellipsoid.f;
+        Cartesian p = new Cartesian(out[0], out[1], out[2]);
+
+        return p;
+    }
+    
+    /**
+     * Converts a latitude/longitude in degrees and height in metres on the given ellipsoid to
+     * geocentric x/y/z coordinates, written to out[0..2].
+     */
+    public static void toCartesian( double lat, double lon, double height, EllipsoidConstants ellipsoid, double[] out ) {
+
+        double φ = Math.toRadians( lat );
+        double λ = Math.toRadians( lon );
+        double h = height; // height above ellipsoid
 
         double sinφ = Math.sin(φ);
         double cosφ = Math.cos(φ);
         double sinλ = Math.sin(λ);
         double cosλ = Math.cos(λ);
 
-        double eSq = 2*f - f*f;                      // 1st eccentricity squared ≡ (a²-b²)/a²
-        double ν = a / Math.sqrt(1 - eSq*sinφ*sinφ); // radius of curvature in prime vertical
-
-        double x = (ν+h) * cosφ * cosλ;
-        double y = (ν+h) * cosφ * sinλ;
-        double z = (ν*(1-eSq)+h) * sinφ;
+        double eSq = ellipsoid.e2;                             // 1st eccentricity squared ≡ (a²-b²)/a²
+        double ν = ellipsoid.a / Math.sqrt(1 - eSq*sinφ*sinφ); // radius of curvature in prime vertical
 
-        Cartesian p = new Cartesian(x, y, z);
-
-        return p;
+        out[0] = (ν+h) * cosφ * cosλ;
+        out[1] = (ν+h) * cosφ * sinλ;
+        out[2] = (ν*ellipsoid.oneMinusE2+h) * sinφ;
+    }
+    
+    /**
+     * Converts arrays of latitudes/longitudes in degrees and heights in metres on the given
+     * ellipsoid to geocentric x/y/z coordinates. The output arrays may be the input arrays.
+     */
+    public static void toCartesian( double[] lat, double[] lon, double[] height, EllipsoidConstants ellipsoid, double[] x, double[] y, double[] z, int count ) {
+        double[] out = new double[3];
+        for( int i = 0; i < count; i++ ){
+            toCartesian( lat[i], lon[i], height[i], ellipsoid, out );
+            x[i] = out[0];
+            y[i] = out[1];
+            z[i] = out[2];
+        }
     }
        
     /**
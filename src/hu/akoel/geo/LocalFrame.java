@@ -0,0 +1,218 @@
+package hu.akoel.geo;
+
+/**
+ * Local tangent plane (east-north-up / north-east-down) around a reference point.
+ *
+ * The ECEF origin and the rotation matrix of the frame are computed once, when the frame is
+ * created, so converting a point costs no trigonometry of the reference. For a moving
+ * reference create a new frame whenever the reference moves; the frame is immutable and can be
+ * shared between threads.
+ *
+ * @example
+ *   LocalFrame frame = new LocalFrame( 47.51292, 19.51728, 200.8, Datums.WGS84 );
+ *   frame.geodeticToEnu( lat, lon, height, 0, lat.length ); // in place: east, north, up
+ */
+public final class LocalFrame {
+
+	private final EllipsoidConstants ellipsoid;
+
+	/** ECEF coordinates of the reference point */
+	public final double originX, originY, originZ;
+
+	// rows of the ECEF -> ENU rotation
+	private final double ex, ey;
+	private final double nx, ny, nz;
+	private final double ux, uy, uz;
+
+	/**
+	 * @param lat       - latitude of the reference point in degrees
+	 * @param lon       - longitude of the reference point in degrees
+	 * @param height    - height of the reference point above the ellipsoid in metres
+	 * @param ellipsoid - ellipsoid of the reference point and of the converted points
+	 */
+	public LocalFrame( double lat, double lon, double height, EllipsoidConstants ellipsoid ){
+		this.ellipsoid = ellipsoid;
+
+		double[] origin = new double[3];
+		LatLonEllipsoidal.toCartesian( lat, lon, height, ellipsoid, origin );
+		originX = origin[0];
+		originY = origin[1];
+		originZ = origin[2];
+
+		double φ = Math.toRadians( lat );
+		double λ = Math.toRadians( lon );
+		double sinφ = Math.sin( φ ), cosφ = Math.cos( φ );
+		double sinλ = Math.sin( λ ), cosλ = Math.cos( λ );
+
+		ex = -sinλ;       ey = cosλ;
+		nx = -sinφ*cosλ;  ny = -sinφ*sinλ;  nz = cosφ;
+		ux = cosφ*cosλ;   uy = cosφ*sinλ;   uz = sinφ;
+	}
+
+	public LocalFrame( double lat, double lon, double height, Datums datum ){
+		this( lat, lon, height, datum.ellipsoid.constants );
+	}
+
+	public LocalFrame( LatLonEllipsoidal reference ){
+		this( reference.lat, reference.lon, reference.height, reference.datum.ellipsoid.constants );
+	}
+
+	/**
+	 * ECEF x/y/z to east/north/up in out[0..2].
+	 */
+	public void ecefToEnu( double x, double y, double z, double[] out ){
+		double dx = x - originX, dy = y - originY, dz = z - originZ;
+		out[0] = ex*dx + ey*dy;
+		out[1] = nx*dx + ny*dy + nz*dz;
+		out[2] = ux*dx + uy*dy + uz*dz;
+	}
+
+	/**
+	 * East/north/up to ECEF x/y/z in out[0..2].
+	 */
+	public void enuToEcef( double e, double n, double u, double[] out ){
+		out[0] = originX + ex*e + nx*n + ux*u;
+		out[1] = originY + ey*e + ny*n + uy*u;
+		out[2] = originZ +        nz*n + uz*u;
+	}
+
+	/**
+	 * ECEF x/y/z to north/east/down in out[0..2].
+	 */
+	public void ecefToNed( double x, double y, double z, double[] out ){
+		double dx = x - originX, dy = y - originY, dz = z - originZ;
+		out[0] = nx*dx + ny*dy + nz*dz;
+		out[1] = ex*dx + ey*dy;
+		out[2] = -( ux*dx + uy*dy + uz*dz );
+	}
+
+	/**
+	 * North/east/down to ECEF x/y/z in out[0..2].
+	 */
+	public void nedToEcef( double n, double e, double d, double[] out ){
+		enuToEcef( e, n, -d, out );
+	}
+
+	/**
+	 * Latitude/longitude in degrees and height in metres to east/north/up in out[0..2], without
+	 * an intermediate Cartesian object.
+	 */
+	public void geodeticToEnu( double lat, double lon, double height, double[] out ){
+		LatLonEllipsoidal.toCartesian( lat, lon, height, ellipsoid, out );
+		ecefToEnu( out[0], out[1], out[2], out );
+	}
+
+	/**
+	 * Latitude/longitude in degrees and height in metres to north/east/down in out[0..2].
+	 */
+	public void geodeticToNed( double lat, double lon, double height, double[] out ){
+		LatLonEllipsoidal.toCartesian( lat, lon, height, ellipsoid, out );
+		ecefToNed( out[0], out[1], out[2], out );
+	}
+
+	/**
+	 * East/north/up to latitude/longitude in degrees and height in metres in out[0..2].
+	 */
+	public void enuToGeodetic( double e, double n, double u, double[] out ){
+		enuToEcef( e, n, u, out );
+		Cartesian.toLatLon( out[0], out[1], out[2], ellipsoid, out );
+	}
+
+	/**
+	 * North/east/down to latitude/longitude in degrees and height in metres in out[0..2].
+	 */
+	public void nedToGeodetic( double n, double e, double d, double[] out ){
+		enuToEcef( e, n, -d, out );
+		Cartesian.toLatLon( out[0], out[1], out[2], ellipsoid, out );
+	}
+
+	/**
+	 * Converts ECEF x/y/z arrays to east/north/up in place.
+	 */
+	public void ecefToEnu( double[] x, double[] y, double[] z, int offset, int count ){
+		for( int i = offset; i < offset + count; i++ ){
+			double dx = x[i] - originX, dy = y[i] - originY, dz = z[i] - originZ;
+			x[i] = ex*dx + ey*dy;
+			y[i] = nx*dx + ny*dy + nz*dz;
+			z[i] = ux*dx + uy*dy + uz*dz;
+		}
+	}
+
+	/**
+	 * Converts east/north/up arrays to ECEF x/y/z in place.
+	 */
+	public void enuToEcef( double[] e, double[] n, double[] u, int offset, int count ){
+		for( int i = offset; i < offset + count; i++ ){
+			double de = e[i], dn = n[i], du = u[i];
+			e[i] = originX + ex*de + nx*dn + ux*du;
+			n[i] = originY + ey*de + ny*dn + uy*du;
+			u[i] = originZ +         nz*dn + uz*du;
+		}
+	}
+
+	/**
+	 * Converts ECEF x/y/z arrays to north/east/down in place.
+	 */
+	public void ecefToNed( double[] x, double[] y, double[] z, int offset, int count ){
+		for( int i = offset; i < offset + count; i++ ){
+			double dx = x[i] - originX, dy = y[i] - originY, dz = z[i] - originZ;
+			x[i] = nx*dx + ny*dy + nz*dz;
+			y[i] = ex*dx + ey*dy;
+			z[i] = -( ux*dx + uy*dy + uz*dz );
+		}
+	}
+
+	/**
+	 * Converts north/east/down arrays to ECEF x/y/z in place.
+	 */
+	public void nedToEcef( double[] n, double[] e, double[] d, int offset, int count ){
+		for( int i = offset; i < offset + count; i++ ){
+			double dn = n[i], de = e[i], du = -d[i];
+			n[i] = originX + ex*de + nx*dn + ux*du;
+			e[i] = originY + ey*de + ny*dn + uy*du;
+			d[i] = originZ +         nz*dn + uz*du;
+		}
+	}
+
+	/**
+	 * Converts latitude/longitude/height arrays to east/north/up in place.
+	 */
+	public void geodeticToEnu( double[] lat, double[] lon, double[] height, int offset, int count ){
+		double[] p = new double[3];
+		for( int i = offset; i < offset + count; i++ ){
+			LatLonEllipsoidal.toCartesian( lat[i], lon[i], height[i], ellipsoid, p );
+			double dx = p[0] - originX, dy = p[1] - originY, dz = p[2] - originZ;
+			lat[i] = ex*dx + ey*dy;
+			lon[i] = nx*dx + ny*dy + nz*dz;
+			height[i] = ux*dx + uy*dy + uz*dz;
+		}
+	}
+
+	/**
+	 * Converts latitude/longitude/height arrays to north/east/down in place.
+	 */
+	public void geodeticToNed( double[] lat, double[] lon, double[] height, int offset, int count ){
+		double[] p = new double[3];
+		for( int i = offset; i < offset + count; i++ ){
+			LatLonEllipsoidal.toCartesian( lat[i], lon[i], height[i], ellipsoid, p );
+			double dx = p[0] - originX, dy = p[1] - originY, dz = p[2] - originZ;
+			lat[i] = nx*dx + ny*dy + nz*dz;
+			lon[i] = ex*dx + ey*dy;
+			height[i] = -( ux*dx + uy*dy + uz*dz );
+		}
+	}
+
+	/**
+	 * Converts east/north/up arrays to latitude/longitude/height in place.
+	 */
+	public void enuToGeodetic( double[] e, double[] n, double[] u, int offset, int count ){
+		double[] p = new double[3];
+		for( int i = offset; i < offset + count; i++ ){
+			enuToEcef( e[i], n[i], u[i], p );
+			Cartesian.toLatLon( p[0], p[1], p[2], ellipsoid, p );
+			e[i] = p[0];
+			n[i] = p[1];
+			u[i] = p[2];
+		}
+	}
+}
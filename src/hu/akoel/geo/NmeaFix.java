@@ -0,0 +1,68 @@
+package hu.akoel.geo;
+
+/**
+ * Position decoded from an NMEA GGA or RMC sentence. The object is meant to be reused for every
+ * sentence; fields the sentence does not carry are NaN (or 0 for the integer fields).
+ */
+public class NmeaFix {
+
+	/** NmeaParser.GGA or NmeaParser.RMC */
+	public int type;
+
+	/** UTC time of day in seconds */
+	public double time;
+
+	/** UTC date as ddmmyy (RMC only) */
+	public int date;
+
+	/** WGS84 latitude and longitude in degrees */
+	public double latitude, longitude;
+
+	/** Altitude above mean sea level and geoid separation in metres (GGA only) */
+	public double altitude, geoidSeparation;
+
+	/** Fix quality, 0 = no fix (GGA only) */
+	public int quality;
+
+	/** Number of satellites in use (GGA only) */
+	public int satellites;
+
+	/** Horizontal dilution of precision (GGA only) */
+	public double hdop;
+
+	/** Status of the fix, 'A' = valid (RMC only) */
+	public boolean valid;
+
+	/** Speed over ground in knots and course over ground in degrees (RMC only) */
+	public double speed, course;
+
+	/** UTM position of the fix, if the parser projects; zone is 0 otherwise */
+	public final UTMForm utm = new UTMForm( 0, ' ', Double.NaN, Double.NaN );
+
+	/**
+	 * @returns {number} Height above the WGS84 ellipsoid in metres (GGA only).
+	 */
+	public double getEllipsoidalHeight(){
+		return altitude + geoidSeparation;
+	}
+
+	void clear( int type ){
+		this.type = type;
+		time = Double.NaN;
+		date = 0;
+		latitude = Double.NaN;
+		longitude = Double.NaN;
+		altitude = Double.NaN;
+		geoidSeparation = Double.NaN;
+		quality = 0;
+		satellites = 0;
+		hdop = Double.NaN;
+		valid = false;
+		speed = Double.NaN;
+		course = Double.NaN;
+		utm.zone = 0;
+		utm.letter = ' ';
+		utm.easting = Double.NaN;
+		utm.northing = Double.NaN;
+	}
+}
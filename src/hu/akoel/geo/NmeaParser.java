@@ -0,0 +1,253 @@
+package hu.akoel.geo;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Parser of NMEA 0183 GGA and RMC sentences straight from bytes.
+ *
+ * Sentences are read in place from byte arrays and heap buffers; only sentences of a direct
+ * buffer are copied, into a scratch array of the parser. The checksum is always verified, the
+ * ddmm.mmmm coordinates are decoded to degrees without Strings, and the position can optionally
+ * be projected to UTM in the same pass. Nothing is allocated per sentence.
+ *
+ * A parser keeps scratch state, so use one parser per thread.
+ *
+ * @example
+ *   NmeaParser parser = new NmeaParser( true );
+ *   NmeaFix fix = new NmeaFix();
+ *   while( parser.next( buffer, fix ) ){
+ *       consume( fix.latitude, fix.longitude, fix.utm );
+ *   }
+ *   buffer.compact(); // keep the incomplete sentence for the next read
+ *   ...
+ *   while( parser.next( buffer, fix, true ) ){ // end of the stream: the last line may lack its end
+ *       consume( fix.latitude, fix.longitude, fix.utm );
+ *   }
+ */
+public class NmeaParser {
+
+	public static final int GGA = 1;
+	public static final int RMC = 2;
+
+	// NMEA 0183 limits a sentence to 82 characters, allow some slack
+	private static final int MAX_SENTENCE = 128;
+	private static final int MAX_FIELDS = 24;
+
+	private final boolean projectToUTM;
+	private final byte[] scratch = new byte[ MAX_SENTENCE ];
+	private final int[] fieldStart = new int[ MAX_FIELDS ];
+	private final int[] fieldEnd = new int[ MAX_FIELDS ];
+
+	public NmeaParser(){
+		this( false );
+	}
+
+	/**
+	 * @param projectToUTM - also project every position to NmeaFix.utm
+	 */
+	public NmeaParser( boolean projectToUTM ){
+		this.projectToUTM = projectToUTM;
+	}
+
+	/**
+	 * Decodes the next valid GGA or RMC sentence of the buffer, skipping anything else.
+	 *
+	 * On return the position of the buffer is after the decoded sentence, or, if there is no
+	 * more complete sentence, at the start of the incomplete one.
+	 *
+	 * @returns {boolean} True if a sentence was decoded into the fix.
+	 */
+	public boolean next( ByteBuffer buffer, NmeaFix fix ){
+		return next( buffer, fix, false );
+	}
+
+	/**
+	 * Decodes the next valid GGA or RMC sentence of the buffer, skipping anything else.
+	 *
+	 * @param endOfInput - no more bytes follow the buffer, so a last sentence without line end is
+	 *                     complete at the limit instead of waiting for the next read, and
+	 *                     no incomplete sentence is kept
+	 * @returns {boolean} True if a sentence was decoded into the fix.
+	 * @see #next(ByteBuffer, NmeaFix)
+	 */
+	public boolean next( ByteBuffer buffer, NmeaFix fix, boolean endOfInput ){
+		byte[] array = buffer.hasArray() ? buffer.array() : null;
+		int base = buffer.hasArray() ? buffer.arrayOffset() : 0;
+		int limit = buffer.limit();
+		int position = buffer.position();
+
+		while( true ){
+			// start of the sentence
+			int start = position;
+			while( start < limit && buffer.get( start ) != '$' ){
+				start++;
+			}
+			if( start == limit ){
+				buffer.position( limit );
+				return false;
+			}
+
+			// end of the line
+			int end = start + 1;
+			while( end < limit && buffer.get( end ) != '\n' && buffer.get( end ) != '\r' && buffer.get( end ) != '$' ){
+				end++;
+			}
+			if( end == limit && !endOfInput ){
+				if( limit - start > MAX_SENTENCE ){
+					// garbage without line end, drop it
+					position = start + 1;
+					continue;
+				}
+				buffer.position( start );
+				return false;
+			}
+			position = end;
+
+			boolean decoded;
+			if( null != array ){
+				decoded = parse( array, base + start, base + end, fix );
+			}else if( end - start <= MAX_SENTENCE ){
+				for( int i = start; i < end; i++ ){
+					scratch[ i - start ] = buffer.get( i );
+				}
+				decoded = parse( scratch, 0, end - start, fix );
+			}else{
+				decoded = false;
+			}
+			if( decoded ){
+				buffer.position( position );
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Decodes one sentence, from '$' up to the checksum, optionally followed by line end.
+	 *
+	 * @returns {boolean} True if the sentence is a GGA or RMC sentence with a valid checksum.
+	 */
+	public boolean parse( byte[] b, int from, int to, NmeaFix fix ){
+		while( to > from && ( b[ to - 1 ] == '\n' || b[ to - 1 ] == '\r' ) ){
+			to--;
+		}
+		if( to - from < 10 || b[ from ] != '$' || b[ to - 3 ] != '*' ){
+			return false;
+		}
+
+		// checksum: XOR of everything between '$' and '*'
+		int checksum = 0;
+		for( int i = from + 1; i < to - 3; i++ ){
+			checksum ^= b[i];
+		}
+		int high = hex( b[ to - 2 ] );
+		int low = hex( b[ to - 1 ] );
+		if( high < 0 || low < 0 || checksum != ( high << 4 | low ) ){
+			return false;
+		}
+
+		// fields; field 0 is the address, e.g. GPGGA
+		int fields = 0;
+		fieldStart[0] = from + 1;
+		for( int i = from + 1; i < to - 3; i++ ){
+			if( b[i] == ',' ){
+				fieldEnd[ fields++ ] = i;
+				if( fields == MAX_FIELDS ){
+					return false;
+				}
+				fieldStart[ fields ] = i + 1;
+			}
+		}
+		fieldEnd[ fields++ ] = to - 3;
+
+		int address = fieldEnd[0] - fieldStart[0];
+		if( address < 3 ){
+			return false;
+		}
+		int s = fieldEnd[0] - 3;
+		if( b[s] == 'G' && b[ s + 1 ] == 'G' && b[ s + 2 ] == 'A' && fields >= 10 ){
+			fix.clear( GGA );
+			fix.time = time( b, 1 );
+			fix.latitude = coordinate( b, 2, 3, 'N', 'S' );
+			fix.longitude = coordinate( b, 4, 5, 'E', 'W' );
+			fix.quality = Math.max( 0, AsciiNumbers.parseInt( b, fieldStart[6], fieldEnd[6] ) );
+			fix.satellites = Math.max( 0, AsciiNumbers.parseInt( b, fieldStart[7], fieldEnd[7] ) );
+			fix.hdop = AsciiNumbers.parseDouble( b, fieldStart[8], fieldEnd[8] );
+			fix.altitude = AsciiNumbers.parseDouble( b, fieldStart[9], fieldEnd[9] );
+			if( fields >= 12 ){
+				fix.geoidSeparation = AsciiNumbers.parseDouble( b, fieldStart[11], fieldEnd[11] );
+			}
+		}else if( b[s] == 'R' && b[ s + 1 ] == 'M' && b[ s + 2 ] == 'C' && fields >= 10 ){
+			fix.clear( RMC );
+			fix.time = time( b, 1 );
+			fix.valid = fieldEnd[2] - fieldStart[2] == 1 && b[ fieldStart[2] ] == 'A';
+			fix.latitude = coordinate( b, 3, 4, 'N', 'S' );
+			fix.longitude = coordinate( b, 5, 6, 'E', 'W' );
+			fix.speed = AsciiNumbers.parseDouble( b, fieldStart[7], fieldEnd[7] );
+			fix.course = AsciiNumbers.parseDouble( b, fieldStart[8], fieldEnd[8] );
+			fix.date = Math.max( 0, AsciiNumbers.parseInt( b, fieldStart[9], fieldEnd[9] ) );
+		}else{
+			return false;
+		}
+
+		if( projectToUTM && !Double.isNaN( fix.latitude ) && !Double.isNaN( fix.longitude ) ){
+			WGS84UTM.getWGS842UTM( fix.latitude, fix.longitude, fix.utm );
+		}
+		return true;
+	}
+
+	/**
+	 * hhmmss.ss to seconds of the day
+	 */
+	private double time( byte[] b, int field ){
+		int from = fieldStart[ field ];
+		int to = fieldEnd[ field ];
+		if( to - from < 6 ){
+			return Double.NaN;
+		}
+		int hh = AsciiNumbers.parseInt( b, from, from + 2 );
+		int mm = AsciiNumbers.parseInt( b, from + 2, from + 4 );
+		double ss = AsciiNumbers.parseDouble( b, from + 4, to );
+		if( hh < 0 || mm < 0 ){
+			return Double.NaN;
+		}
+		return hh * 3600 + mm * 60 + ss;
+	}
+
+	/**
+	 * (d)ddmm.mmmm and hemisphere to signed degrees; NaN unless the hemisphere is one of the two
+	 */
+	private double coordinate( byte[] b, int field, int hemisphereField, char positive, char negative ){
+		int from = fieldStart[ field ];
+		int to = fieldEnd[ field ];
+		if( fieldEnd[ hemisphereField ] - fieldStart[ hemisphereField ] != 1 ){
+			return Double.NaN;
+		}
+		byte hemisphere = b[ fieldStart[ hemisphereField ] ];
+		if( hemisphere != positive && hemisphere != negative ){
+			return Double.NaN;
+		}
+
+		// the minutes are the two digits before the decimal point and the fraction
+		int point = from;
+		while( point < to && b[ point ] != '.' ){
+			point++;
+		}
+		if( point - from < 3 ){
+			return Double.NaN;
+		}
+		int degrees = AsciiNumbers.parseInt( b, from, point - 2 );
+		double minutes = AsciiNumbers.parseDouble( b, point - 2, to );
+		if( degrees < 0 || Double.isNaN( minutes ) ){
+			return Double.NaN;
+		}
+		double deg = degrees + minutes / 60;
+		return ( hemisphere == negative ) ? -deg : deg;
+	}
+
+	private static int hex( byte c ){
+		if( c >= '0' && c <= '9' ) return c - '0';
+		if( c >= 'A' && c <= 'F' ) return c - 'A' + 10;
+		if( c >= 'a' && c <= 'f' ) return c - 'a' + 10;
+		return -1;
+	}
+}
@@ -0,0 +1,87 @@
+package hu.akoel.geo;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Factory of the UTM projection engines.
+ *
+ * The reference engine and the high-precision KrugerUTMEngine are always registered; other
+ * engines are added with register. The default engine is named by the hu.akoel.geo.utm.engine
+ * system property and is the reference engine if the property is not set, so an engine can be
+ * switched without rebuilding the callers:
+ *
+ *   java -Dhu.akoel.geo.utm.engine=reference ...
+ *
+ * Like GeodeticRegistry, registration publishes a new immutable table and lookups take no lock.
+ *
+ * @example
+ *   UTMProjectionEngine engine = ProjectionEngines.getDefault();
+ *   engine.toUTM( lat, lon, zone, letter, easting, northing, 0, lat.length );
+ */
+public final class ProjectionEngines {
+
+	public static final String PROPERTY = "hu.akoel.geo.utm.engine";
+
+	private static final UTMProjectionEngine REFERENCE = new ReferenceUTMEngine();
+
+	private static volatile Map<String, UTMProjectionEngine> engines;
+
+	static{
+		Map<String, UTMProjectionEngine> seed = new LinkedHashMap<String, UTMProjectionEngine>();
+		seed.put( REFERENCE.getName(), REFERENCE );
+		UTMProjectionEngine kruger = new KrugerUTMEngine();
+		seed.put( kruger.getName(), kruger );
+		engines = seed;
+	}
+
+	private ProjectionEngines(){
+	}
+
+	public static UTMProjectionEngine getReference(){
+		return REFERENCE;
+	}
+
+	/**
+	 * @returns {UTMProjectionEngine} The engine named by the hu.akoel.geo.utm.engine system
+	 *                                property, or the reference engine.
+	 * @throws IllegalArgumentException if the property names an unknown engine.
+	 */
+	public static UTMProjectionEngine getDefault(){
+		String name = System.getProperty( PROPERTY );
+		if( null == name ){
+			return REFERENCE;
+		}
+		UTMProjectionEngine engine = get( name );
+		if( null == engine ){
+			throw new IllegalArgumentException( "Unknown UTM projection engine: " + name );
+		}
+		return engine;
+	}
+
+	/**
+	 * @returns {UTMProjectionEngine} The engine registered under the name, or null.
+	 */
+	public static UTMProjectionEngine get( String name ){
+		return engines.get( name );
+	}
+
+	/**
+	 * @returns {String[]} Names of the registered engines, in order of registration.
+	 */
+	public static String[] getNames(){
+		return engines.keySet().toArray( new String[0] );
+	}
+
+	/**
+	 * @throws IllegalArgumentException if an engine is already registered under its name.
+	 */
+	public static synchronized void register( UTMProjectionEngine engine ){
+		if( engines.containsKey( engine.getName() ) ){
+			throw new IllegalArgumentException( "UTM projection engine already registered: " + engine.getName() );
+		}
+		Map<String, UTMProjectionEngine> copy = new LinkedHashMap<String, UTMProjectionEngine>( engines );
+		copy.put( engine.getName(), engine );
+		engines = copy;
+	}
+}
@@ -0,0 +1,69 @@
+package hu.akoel.geo;
+
+/**
+ * The formulas of WGS84UTM as a UTMProjectionEngine. WGS84UTM, Deg2UTM and UTM2Deg give the
+ * results of this engine, rounded.
+ */
+public final class ReferenceUTMEngine implements UTMProjectionEngine {
+
+	public static final String NAME = "reference";
+
+	@Override
+	public String getName(){
+		return NAME;
+	}
+
+	@Override
+	public UTMForm toUTM( double latitude, double longitude ){
+		UTMForm utmForm = new UTMForm( 0, ' ', 0, 0 );
+		toUTM( latitude, longitude, utmForm );
+		return utmForm;
+	}
+
+	@Override
+	public void toUTM( double latitude, double longitude, UTMForm utmForm ){
+		int zone = WGS84UTM.getZone( longitude );
+		char letter = WGS84UTM.getLetter( latitude );
+		utmForm.zone = zone;
+		utmForm.letter = letter;
+		utmForm.easting = WGS84UTM.getEasting( latitude, longitude, zone );
+		utmForm.northing = WGS84UTM.getNorthing( latitude, longitude, zone ) + WGS84UTM.getFalseNorthing( letter );
+	}
+
+	@Override
+	public void toUTM( double[] latitude, double[] longitude, int[] zone, char[] letter, double[] easting, double[] northing, int offset, int count ){
+		for( int i = offset; i < offset + count; i++ ){
+			double lat = latitude[i];
+			double lon = longitude[i];
+			int z = WGS84UTM.getZone( lon );
+			char l = WGS84UTM.getLetter( lat );
+			zone[i] = z;
+			letter[i] = l;
+			easting[i] = WGS84UTM.getEasting( lat, lon, z );
+			northing[i] = WGS84UTM.getNorthing( lat, lon, z ) + WGS84UTM.getFalseNorthing( l );
+		}
+	}
+
+	@Override
+	public WGS84Form toWGS84( UTMForm utmForm ){
+		double[] out = new double[2];
+		toWGS84( utmForm.zone, utmForm.letter, utmForm.easting, utmForm.northing, out );
+		return new WGS84Form( out[0], out[1] );
+	}
+
+	@Override
+	public void toWGS84( int zone, char letter, double easting, double northing, double[] out ){
+		double north = northing - WGS84UTM.getFalseNorthing( letter );
+		out[0] = WGS84UTM.getLatitude( north, easting );
+		out[1] = WGS84UTM.getLongitude( north, easting, zone );
+	}
+
+	@Override
+	public void toWGS84( int[] zone, char[] letter, double[] easting, double[] northing, double[] latitude, double[] longitude, int offset, int count ){
+		for( int i = offset; i < offset + count; i++ ){
+			double north = northing[i] - WGS84UTM.getFalseNorthing( letter[i] );
+			latitude[i] = WGS84UTM.getLatitude( north, easting[i] );
+			longitude[i] = WGS84UTM.getLongitude( north, easting[i], zone[i] );
+		}
+	}
+}
@@ -1,7 +1,7 @@
 package hu.akoel.geo;
 
 public class Rotation implements Cloneable{
-	public double s;
+	public final double s;
 	public Rotation( double s ){
 		this.s = s;
 	}
@@ -0,0 +1,177 @@
+package hu.akoel.geo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lazy builder of a chain of datum shifts, ECEF/geodetic conversions and affine steps.
+ *
+ * The steps are only recorded while the chain is built. compile() reduces them, and the
+ * reduced chain is then run once per point or once per batch:
+ *  - a geodetic->ECEF step right after an ECEF->geodetic step on the same ellipsoid (and the
+ *    other way round) cancels,
+ *  - an affine step cancels the one before it if the two compose to exactly the identity;
+ *    a datum's toWGS84 and fromWGS84 (negated Helmert parameters) are only approximately
+ *    inverse, so A->WGS84->A is merged into one matrix, not dropped, and the chain agrees
+ *    with converting the datums one by one up to rounding,
+ *  - consecutive affine steps are multiplied into one matrix, which is dropped if it is the
+ *    identity.
+ *
+ * @example
+ *   CompiledTransformChain chain = TransformChain.fromGeodetic( GeodeticRegistry.getDatum( Datums.OSGB36 ) )
+ *       .convertDatum( GeodeticRegistry.getDatum( Datums.WGS84 ) )
+ *       .convertDatum( GeodeticRegistry.getDatum( Datums.OED50 ) )
+ *       .toCartesian()
+ *       .translate( 10, 0, -5 )
+ *       .compile();
+ *   chain.transform( lat, lon, height, 0, lat.length ); // lat/lon/height become x/y/z in place
+ */
+public final class TransformChain {
+
+	private final List<Step> steps = new ArrayList<Step>();
+	private Datum datum;
+	private boolean geodetic;
+
+	private TransformChain( Datum datum, boolean geodetic ){
+		this.datum = datum;
+		this.geodetic = geodetic;
+	}
+
+	/**
+	 * Starts a chain on latitude/longitude/height coordinates of the datum.
+	 */
+	public static TransformChain fromGeodetic( Datum datum ){
+		return new TransformChain( datum, true );
+	}
+
+	/**
+	 * Starts a chain on ECEF coordinates of the datum.
+	 */
+	public static TransformChain fromCartesian( Datum datum ){
+		return new TransformChain( datum, false );
+	}
+
+	/**
+	 * Converts the coordinates to the datum, keeping them geodetic or ECEF.
+	 */
+	public TransformChain convertDatum( Datum toDatum ){
+		boolean wasGeodetic = geodetic;
+		if( wasGeodetic ){
+			toCartesian();
+		}
+		steps.add( Step.affine( datum.toWGS84 ) );
+		steps.add( Step.affine( toDatum.fromWGS84 ) );
+		datum = toDatum;
+		if( wasGeodetic ){
+			toGeodetic();
+		}
+		return this;
+	}
+
+	/**
+	 * Converts geodetic coordinates to ECEF coordinates.
+	 */
+	public TransformChain toCartesian(){
+		if( !geodetic ){
+			throw new IllegalStateException( "Coordinates are already cartesian" );
+		}
+		steps.add( new Step( Step.TO_CARTESIAN, null, datum.ellipsoid.constants ) );
+		geodetic = false;
+		return this;
+	}
+
+	/**
+	 * Converts ECEF coordinates to geodetic coordinates.
+	 */
+	public TransformChain toGeodetic(){
+		if( geodetic ){
+			throw new IllegalStateException( "Coordinates are already geodetic" );
+		}
+		steps.add( new Step( Step.TO_GEODETIC, null, datum.ellipsoid.constants ) );
+		geodetic = true;
+		return this;
+	}
+
+	/**
+	 * Applies an affine transformation to the ECEF coordinates.
+	 */
+	public TransformChain transform( AffineTransformation transformation ){
+		if( geodetic ){
+			throw new IllegalStateException( "Affine transformations need cartesian coordinates" );
+		}
+		steps.add( Step.affine( transformation ) );
+		return this;
+	}
+
+	/**
+	 * Shifts the ECEF coordinates by dx/dy/dz metres.
+	 */
+	public TransformChain translate( double dx, double dy, double dz ){
+		return transform( AffineTransformation.translation( dx, dy, dz ) );
+	}
+
+	/**
+	 * Reduces the recorded steps and returns the chain that runs them.
+	 */
+	public CompiledTransformChain compile(){
+
+		// cancel inverse pairs; a stack also catches pairs that only meet after an inner cancel
+		List<Step> reduced = new ArrayList<Step>();
+		for( Step step : steps ){
+			if( !reduced.isEmpty() && reduced.get( reduced.size() - 1 ).cancels( step ) ){
+				reduced.remove( reduced.size() - 1 );
+			}else{
+				reduced.add( step );
+			}
+		}
+
+		// multiply consecutive affine steps
+		List<Step> merged = new ArrayList<Step>();
+		for( Step step : reduced ){
+			Step last = merged.isEmpty() ? null : merged.get( merged.size() - 1 );
+			if( step.kind == Step.AFFINE && null != last && last.kind == Step.AFFINE ){
+				merged.set( merged.size() - 1, Step.affine( last.affine.then( step.affine ) ) );
+			}else{
+				merged.add( step );
+			}
+		}
+		for( int i = merged.size() - 1; i >= 0; i-- ){
+			if( merged.get( i ).kind == Step.AFFINE && merged.get( i ).affine.isIdentity() ){
+				merged.remove( i );
+			}
+		}
+
+		return new CompiledTransformChain( merged.toArray( new Step[ merged.size() ] ) );
+	}
+
+	/**
+	 * One recorded step of the chain.
+	 */
+	static final class Step {
+		static final int TO_CARTESIAN = 0;
+		static final int TO_GEODETIC = 1;
+		static final int AFFINE = 2;
+
+		final int kind;
+		final AffineTransformation affine;
+		final EllipsoidConstants ellipsoid;
+
+		Step( int kind, AffineTransformation affine, EllipsoidConstants ellipsoid ){
+			this.kind = kind;
+			this.affine = affine;
+			this.ellipsoid = ellipsoid;
+		}
+
+		static Step affine( AffineTransformation affine ){
+			return new Step( AFFINE, affine, null );
+		}
+
+		boolean cancels( Step next ){
+			switch( kind ){
+				case TO_CARTESIAN: return next.kind == TO_GEODETIC && next.ellipsoid == ellipsoid;
+				case TO_GEODETIC:  return next.kind == TO_CARTESIAN && next.ellipsoid == ellipsoid;
+				default:           return next.kind == AFFINE && affine.then( next.affine ).isIdentity();
+			}
+		}
+	}
+}
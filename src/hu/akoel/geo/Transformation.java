@@ -1,8 +1,8 @@
 package hu.akoel.geo;
 
 public class Transformation{
-	public Translation tTranslation, rTranslation;
-	public Rotation rotation;
+	public final Translation tTranslation, rTranslation;
+	public final Rotation rotation;
 	public Transformation( Translation tTranslation, Translation rTranslation, Rotation rotation ){
 		this.tTranslation = tTranslation;
 		this.rTranslation = rTranslation;
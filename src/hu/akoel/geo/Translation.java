@@ -1,7 +1,7 @@
 package hu.akoel.geo;
 
 public class Translation{
-	public double x, y, z;
+	public final double x, y, z;
 	public Translation( double x, double y, double z ){
 		this.x = x;
 		this.y = y;
@@ -0,0 +1,731 @@
+package hu.akoel.geo;
+
+/**
+ * In-memory spatial index over points projected to UTM.
+ *
+ * Points are partitioned by UTM zone and latitude band, and every partition is a uniform grid
+ * stored in packed primitive arrays (easting, northing, unit vector and point id sorted by
+ * cell). Inside a zone the northing is kept continuous across the equator, so the bands of a
+ * zone share one coordinate system and queries simply cross band boundaries.
+ *
+ * Distances are great circle distances on the sphere of the mean radius of WGS84, the same for
+ * every point, so the ranking of the neighbours does not depend on their zone. The grids only
+ * select the candidates, nearest first:
+ *  - in the own and the neighbouring zones the query point is projected into the zone and the
+ *    cells are visited by their grid distance, which times GRID_MARGIN is less than the great
+ *    circle distance,
+ *  - the partitions of the zones further away are visited by the great circle distance of their
+ *    latitude/longitude box,
+ * until no unvisited partition can hold a point nearer than the k-th one or within the radius.
+ * A query therefore finds its neighbours in any zone, only at a higher cost the further they are.
+ *
+ * The index is immutable once built, so any number of threads may query it concurrently.
+ *
+ * @example
+ *   UTMGridIndex index = UTMGridIndex.buildFromWGS84( lat, lon, lat.length, 100 );
+ *   int found = index.nearest( 47.51292, 19.51728, 5, ids, distances );
+ */
+public class UTMGridIndex {
+
+	private static final String BAND_LETTERS = "CDEFGHJKLMNPQRSTUVWX";
+	private static final int BANDS = BAND_LETTERS.length();
+	private static final int ZONES = 60;
+
+	// mean radius of WGS84, the sphere of the distances
+	private static final double EARTH_RADIUS = 6371008.8;
+
+	// a grid distance in the own or a neighbouring zone times this is less than the great circle
+	// distance: the scale factor stays below 1.013 within 9 degrees of the central meridian, and
+	// the radii of curvature of WGS84 exceed the mean radius by less than 0.5 %
+	private static final double GRID_MARGIN = 0.97;
+
+	// Grids of every zone, index 0 is zone 1; null if the zone has no point
+	private final Grid[][] zones = new Grid[ZONES][];
+	private final int size;
+
+	// degrees the points of a zone reach beyond its nominal 6 degrees, on either side
+	private final double overhang;
+
+	private UTMGridIndex( int[] partition, double[] x, double[] y, double[] latitude, double[] longitude, int count, double cellSize ){
+
+		if( !( cellSize > 0 ) ){
+			throw new IllegalArgumentException( "cellSize must be positive: " + cellSize );
+		}
+
+		// counting sort of the points by partition (zone * BANDS + band)
+		int[] start = new int[ ZONES * BANDS + 1 ];
+		for( int i = 0; i < count; i++ ){
+			start[ partition[i] + 1 ]++;
+		}
+		for( int p = 0; p < ZONES * BANDS; p++ ){
+			start[ p + 1 ] += start[ p ];
+		}
+		int[] order = new int[ count ];
+		int[] fill = start.clone();
+		for( int i = 0; i < count; i++ ){
+			order[ fill[ partition[i] ]++ ] = i;
+		}
+
+		for( int zone = 0; zone < ZONES; zone++ ){
+			int grids = 0;
+			for( int band = 0; band < BANDS; band++ ){
+				if( start[ zone * BANDS + band + 1 ] > start[ zone * BANDS + band ] ){
+					grids++;
+				}
+			}
+			if( grids == 0 ){
+				continue;
+			}
+			zones[ zone ] = new Grid[ grids ];
+			grids = 0;
+			for( int band = 0; band < BANDS; band++ ){
+				int from = start[ zone * BANDS + band ];
+				int to = start[ zone * BANDS + band + 1 ];
+				if( to > from ){
+					zones[ zone ][ grids++ ] = new Grid( zone + 1, order, from, to, x, y, latitude, longitude, cellSize );
+				}
+			}
+		}
+		double overhang = 0;
+		for( Grid[] grids : zones ){
+			if( null != grids ){
+				for( Grid g : grids ){
+					overhang = Math.max( overhang, Math.max( -3 - g.minOffset, g.maxOffset - 3 ) );
+				}
+			}
+		}
+		this.overhang = overhang;
+		this.size = count;
+	}
+
+	/**
+	 * Builds the index from UTM coordinates as produced by WGS84UTM.getWGS842UTM.
+	 *
+	 * @param zone     - UTM zone numbers
+	 * @param letter   - latitude band letters; bands up to 'M' are southern hemisphere
+	 * @param easting  - eastings in metres
+	 * @param northing - northings in metres, with the false northing in the south
+	 * @param count    - number of points; the id of a point is its index in the arrays
+	 * @param cellSize - edge of a grid cell in metres, about the typical query radius
+	 */
+	public static UTMGridIndex build( int[] zone, char[] letter, double[] easting, double[] northing, int count, double cellSize ){
+		int[] partition = new int[ count ];
+		double[] y = new double[ count ];
+		double[] latitude = new double[ count ];
+		double[] longitude = new double[ count ];
+		for( int i = 0; i < count; i++ ){
+			int band = getBand( letter[i] );
+			int z = normalizeZone( zone[i] );
+			partition[i] = ( z - 1 ) * BANDS + band;
+			y[i] = isNorthern( letter[i] ) ? northing[i] : northing[i] - 10000000;
+			latitude[i] = WGS84UTM.getLatitude( y[i], easting[i] );
+			longitude[i] = WGS84UTM.getLongitude( y[i], easting[i], z );
+		}
+		return new UTMGridIndex( partition, easting, y, latitude, longitude, count, cellSize );
+	}
+
+	/**
+	 * Projects WGS84 coordinates to UTM and builds the index from them.
+	 *
+	 * @param latitude  - latitudes in degrees
+	 * @param longitude - longitudes in degrees
+	 * @param count     - number of points; the id of a point is its index in the arrays
+	 * @param cellSize  - edge of a grid cell in metres, about the typical query radius
+	 */
+	public static UTMGridIndex buildFromWGS84( double[] latitude, double[] longitude, int count, double cellSize ){
+		int[] partition = new int[ count ];
+		double[] x = new double[ count ];
+		double[] y = new double[ count ];
+		for( int i = 0; i < count; i++ ){
+			double lat = latitude[i];
+			double lon = longitude[i];
+			int zone = normalizeZone( WGS84UTM.getZone( lon ) );
+			partition[i] = ( zone - 1 ) * BANDS + getBand( WGS84UTM.getLetter( lat ) );
+			x[i] = WGS84UTM.getEasting( lat, lon, zone );
+			y[i] = WGS84UTM.getNorthing( lat, lon, zone );
+		}
+		return new UTMGridIndex( partition, x, y, latitude, longitude, count, cellSize );
+	}
+
+	/**
+	 * Number of points in the index.
+	 */
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * Finds the k nearest points to a WGS84 position.
+	 *
+	 * @param latitude  - latitude of the query point in degrees
+	 * @param longitude - longitude of the query point in degrees
+	 * @param k         - number of neighbours wanted
+	 * @param ids       - receives the ids of the neighbours, nearest first; length at least k
+	 * @param distances - receives the great circle distances in metres; length at least k
+	 * @returns number of neighbours found, less than k only if the index is smaller
+	 */
+	public int nearest( double latitude, double longitude, int k, int[] ids, double[] distances ){
+		int zone = normalizeZone( WGS84UTM.getZone( longitude ) );
+		return nearest( zone, latitude, longitude, WGS84UTM.getEasting( latitude, longitude, zone ), WGS84UTM.getNorthing( latitude, longitude, zone ), k, ids, distances );
+	}
+
+	/**
+	 * Finds the k nearest points to a UTM position.
+	 *
+	 * @see #nearest(double, double, int, int[], double[])
+	 */
+	public int nearest( int zone, char letter, double easting, double northing, int k, int[] ids, double[] distances ){
+		WGS84Form wgs84 = WGS84UTM.getUTM2WGS84( new UTMForm( zone, letter, easting, northing ) );
+		return nearest( normalizeZone( zone ), wgs84.latitude, wgs84.longitude, easting, isNorthern( letter ) ? northing : northing - 10000000, k, ids, distances );
+	}
+
+	/**
+	 * Finds every point within the given great circle distance of a WGS84 position.
+	 *
+	 * @param latitude  - latitude of the query point in degrees
+	 * @param longitude - longitude of the query point in degrees
+	 * @param radius    - search radius in metres
+	 * @param ids       - receives the ids of the points found, in no particular order
+	 * @returns number of points found; only the first ids.length of them are stored
+	 * @throws IllegalArgumentException if the radius is negative
+	 */
+	public int range( double latitude, double longitude, double radius, int[] ids ){
+		int zone = normalizeZone( WGS84UTM.getZone( longitude ) );
+		return range( zone, latitude, longitude, WGS84UTM.getEasting( latitude, longitude, zone ), WGS84UTM.getNorthing( latitude, longitude, zone ), radius, ids );
+	}
+
+	/**
+	 * Finds every point within the given great circle distance of a UTM position.
+	 *
+	 * @see #range(double, double, double, int[])
+	 */
+	public int range( int zone, char letter, double easting, double northing, double radius, int[] ids ){
+		WGS84Form wgs84 = WGS84UTM.getUTM2WGS84( new UTMForm( zone, letter, easting, northing ) );
+		return range( normalizeZone( zone ), wgs84.latitude, wgs84.longitude, easting, isNorthern( letter ) ? northing : northing - 10000000, radius, ids );
+	}
+
+	private int nearest( int zone, double lat, double lon, double qx, double qy, int k, int[] ids, double[] distances ){
+		if( k <= 0 ){
+			return 0;
+		}
+		double[] unit = unitVector( lat, lon );
+
+		// candidate partitions, ordered by the lower bound of their distance
+		Candidates candidates = new Candidates();
+		for( int dz = -1; dz <= 1; dz++ ){
+			int z = normalizeZone( zone + dz );
+			Grid[] grids = zones[ z - 1 ];
+			if( null == grids ){
+				continue;
+			}
+			double x = ( dz == 0 ) ? qx : WGS84UTM.getEasting( lat, lon, z );
+			double y = ( dz == 0 ) ? qy : WGS84UTM.getNorthing( lat, lon, z );
+			for( Grid g : grids ){
+				candidates.add( g, x, y, Math.sqrt( g.boxDistanceSq( x, y ) ) * GRID_MARGIN, true );
+			}
+		}
+
+		// best first; the distant zones join as soon as they may be nearer than the best candidate
+		int found = 0;
+		int dz = 2;
+		double zoneBound = zonesDistance( lat, lon, zone, dz );
+		while( true ){
+			double bound = Math.min( zoneBound, candidates.bound() );
+			if( bound == Double.POSITIVE_INFINITY || ( found == k && minChordSq( bound * bound ) >= distances[0] ) ){
+				break;
+			}
+			if( zoneBound <= candidates.bound() ){
+				addDistantZone( normalizeZone( zone - dz ), lat, lon, candidates );
+				// on the opposite side of the globe both directions reach the same zone
+				if( dz < ZONES / 2 ){
+					addDistantZone( normalizeZone( zone + dz ), lat, lon, candidates );
+				}
+				dz++;
+				zoneBound = zonesDistance( lat, lon, zone, dz );
+				continue;
+			}
+			int c = candidates.count - 1;
+			Grid g = candidates.grid[c];
+			candidates.count--;
+			if( candidates.near[c] ){
+				found = g.nearest( candidates.x[c], candidates.y[c], unit, k, found, ids, distances );
+			}else{
+				found = g.nearestAll( unit, k, found, ids, distances );
+			}
+		}
+
+		// heap sort the max-heap in place, then turn squared chords into great circle metres
+		for( int end = found - 1; end > 0; end-- ){
+			swap( ids, distances, 0, end );
+			siftDown( ids, distances, 0, end );
+		}
+		for( int i = 0; i < found; i++ ){
+			distances[i] = 2 * EARTH_RADIUS * Math.asin( Math.min( 1, Math.sqrt( distances[i] ) / ( 2 * EARTH_RADIUS ) ) );
+		}
+		return found;
+	}
+
+	private void addDistantZone( int zone, double lat, double lon, Candidates candidates ){
+		Grid[] grids = zones[ zone - 1 ];
+		if( null != grids ){
+			for( Grid g : grids ){
+				candidates.add( g, 0, 0, g.boxDistance( lat, lon ), false );
+			}
+		}
+	}
+
+	private int range( int zone, double lat, double lon, double qx, double qy, double radius, int[] ids ){
+		if( !( radius >= 0 ) ){
+			throw new IllegalArgumentException( "radius must not be negative: " + radius );
+		}
+		double[] unit = unitVector( lat, lon );
+		double limitSq = chordSq( radius );
+		double gridRadius = radius / GRID_MARGIN;
+		int found = 0;
+		for( int dz = -1; dz <= 1; dz++ ){
+			int z = normalizeZone( zone + dz );
+			Grid[] grids = zones[ z - 1 ];
+			if( null == grids ){
+				continue;
+			}
+			double x = ( dz == 0 ) ? qx : WGS84UTM.getEasting( lat, lon, z );
+			double y = ( dz == 0 ) ? qy : WGS84UTM.getNorthing( lat, lon, z );
+			for( Grid g : grids ){
+				if( g.boxDistanceSq( x, y ) <= gridRadius * gridRadius ){
+					found = g.range( x, y, gridRadius, unit, limitSq, found, ids );
+				}
+			}
+		}
+
+		// the distant zones the search circle reaches
+		for( int dz = 2; dz <= ZONES / 2; dz++ ){
+			int west = normalizeZone( zone - dz );
+			int east = normalizeZone( zone + dz );
+			double westBound = zoneDistance( lat, lon, west );
+			double eastBound = ( dz < ZONES / 2 ) ? zoneDistance( lat, lon, east ) : Double.POSITIVE_INFINITY;
+			if( westBound > radius && eastBound > radius ){
+				break;
+			}
+			if( westBound <= radius ){
+				found = rangeDistantZone( west, lat, lon, radius, unit, limitSq, found, ids );
+			}
+			if( eastBound <= radius ){
+				found = rangeDistantZone( east, lat, lon, radius, unit, limitSq, found, ids );
+			}
+		}
+		return found;
+	}
+
+	private int rangeDistantZone( int zone, double lat, double lon, double radius, double[] unit, double limitSq, int found, int[] ids ){
+		Grid[] grids = zones[ zone - 1 ];
+		if( null != grids ){
+			for( Grid g : grids ){
+				if( g.boxDistance( lat, lon ) <= radius ){
+					found = g.rangeAll( unit, limitSq, found, ids );
+				}
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Lower bound of the distance in metres from a position to any point of the zones dz to the
+	 * west and to the east; it grows with dz, so the zones are visited outwards.
+	 */
+	private double zonesDistance( double lat, double lon, int zone, int dz ){
+		if( dz > ZONES / 2 ){
+			return Double.POSITIVE_INFINITY;
+		}
+		return Math.min( zoneDistance( lat, lon, normalizeZone( zone - dz ) ), zoneDistance( lat, lon, normalizeZone( zone + dz ) ) );
+	}
+
+	/**
+	 * Lower bound of the distance in metres from a position to any point of a zone.
+	 */
+	private double zoneDistance( double lat, double lon, int zone ){
+		double offset = Math.abs( Math.IEEEremainder( lon - centralMeridian( zone ), 360 ) );
+		return meridianDistance( lat, Math.max( 0, offset - 3 - overhang ), -90, 90 );
+	}
+
+	/**
+	 * Great circle distance in metres from a position to the segment minLat..maxLat of the
+	 * meridian offset degrees east or west of it.
+	 */
+	private static double meridianDistance( double lat, double offset, double minLat, double maxLat ){
+		double φ = Math.toRadians( lat );
+		double Δλ = Math.toRadians( Math.IEEEremainder( offset, 360 ) );
+		if( Math.cos( Δλ ) > 0 ){
+			// foot of the perpendicular, if it falls on the segment
+			double foot = Math.toDegrees( Math.atan2( Math.sin( φ ), Math.cos( φ ) * Math.cos( Δλ ) ) );
+			if( foot >= minLat && foot <= maxLat ){
+				return EARTH_RADIUS * Math.asin( Math.min( 1, Math.cos( φ ) * Math.abs( Math.sin( Δλ ) ) ) );
+			}
+		}
+		return Math.min( greatCircle( lat, offset, minLat, 0 ), greatCircle( lat, offset, maxLat, 0 ) );
+	}
+
+	private static double greatCircle( double lat1, double lon1, double lat2, double lon2 ){
+		double φ1 = Math.toRadians( lat1 );
+		double φ2 = Math.toRadians( lat2 );
+		double sinΔφ = Math.sin( ( φ2 - φ1 ) / 2 );
+		double sinΔλ = Math.sin( Math.toRadians( lon2 - lon1 ) / 2 );
+		double h = Math.min( 1, sinΔφ * sinΔφ + Math.cos( φ1 ) * Math.cos( φ2 ) * sinΔλ * sinΔλ );
+		return 2 * EARTH_RADIUS * Math.asin( Math.sqrt( h ) );
+	}
+
+	/**
+	 * Squared chord in metres of a great circle distance; the heap is ordered by squared chords,
+	 * which rank the points the same as the great circle distances.
+	 */
+	private static double chordSq( double distance ){
+		if( distance >= Math.PI * EARTH_RADIUS ){
+			return 4 * EARTH_RADIUS * EARTH_RADIUS;
+		}
+		double chord = 2 * EARTH_RADIUS * Math.sin( distance / ( 2 * EARTH_RADIUS ) );
+		return chord * chord;
+	}
+
+	/**
+	 * Lower bound of the squared chord of a squared great circle distance, without trigonometry
+	 * and square root, for pruning: sin(x) >= x - x^3/6.
+	 */
+	private static double minChordSq( double distanceSq ){
+		double xx = Math.min( distanceSq, Math.PI * Math.PI * EARTH_RADIUS * EARTH_RADIUS ) / ( 4 * EARTH_RADIUS * EARTH_RADIUS );
+		double f = 1 - xx / 6;
+		return 4 * EARTH_RADIUS * EARTH_RADIUS * xx * f * f;
+	}
+
+	private static double[] unitVector( double lat, double lon ){
+		double φ = Math.toRadians( lat );
+		double λ = Math.toRadians( lon );
+		return new double[]{ Math.cos( φ ) * Math.cos( λ ), Math.cos( φ ) * Math.sin( λ ), Math.sin( φ ) };
+	}
+
+	private static double centralMeridian( int zone ){
+		return 6 * zone - 183;
+	}
+
+	/**
+	 * Partitions still to be searched, sorted by decreasing lower bound, so the nearest one is
+	 * the last.
+	 */
+	private static final class Candidates {
+		Grid[] grid = new Grid[ 4 * BANDS ];
+		double[] x = new double[ 4 * BANDS ];
+		double[] y = new double[ 4 * BANDS ];
+		double[] bound = new double[ 4 * BANDS ];
+		boolean[] near = new boolean[ 4 * BANDS ];
+		int count;
+
+		void add( Grid g, double gx, double gy, double b, boolean isNear ){
+			if( count == grid.length ){
+				grid = java.util.Arrays.copyOf( grid, count * 2 );
+				x = java.util.Arrays.copyOf( x, count * 2 );
+				y = java.util.Arrays.copyOf( y, count * 2 );
+				bound = java.util.Arrays.copyOf( bound, count * 2 );
+				near = java.util.Arrays.copyOf( near, count * 2 );
+			}
+			int j = count++;
+			while( j > 0 && bound[ j - 1 ] < b ){
+				grid[j] = grid[ j - 1 ]; x[j] = x[ j - 1 ]; y[j] = y[ j - 1 ]; bound[j] = bound[ j - 1 ]; near[j] = near[ j - 1 ];
+				j--;
+			}
+			grid[j] = g; x[j] = gx; y[j] = gy; bound[j] = b; near[j] = isNear;
+		}
+
+		/**
+		 * @returns {number} Lower bound of the nearest candidate, infinite if there is none.
+		 */
+		double bound(){
+			return ( count == 0 ) ? Double.POSITIVE_INFINITY : bound[ count - 1 ];
+		}
+	}
+
+	/**
+	 * One zone/band partition: a uniform grid in compressed row layout.
+	 */
+	private static final class Grid {
+		private final double minX, minY, maxX, maxY;
+		private final double cellSize;
+		private final int columns, rows;
+		private final int[] cellStart;
+		private final double[] x, y;
+		private final double[] ux, uy, uz;
+		private final int[] id;
+
+		// latitude/longitude box, longitudes relative to the central meridian
+		private final double central;
+		private final double minLat, maxLat, minOffset, maxOffset;
+
+		Grid( int zone, int[] order, int from, int to, double[] xs, double[] ys, double[] latitude, double[] longitude, double cellSize ){
+			int n = to - from;
+			this.central = centralMeridian( zone );
+			double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+			double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+			double minLat = Double.POSITIVE_INFINITY, minOffset = Double.POSITIVE_INFINITY;
+			double maxLat = Double.NEGATIVE_INFINITY, maxOffset = Double.NEGATIVE_INFINITY;
+			for( int i = from; i < to; i++ ){
+				int p = order[i];
+				minX = Math.min( minX, xs[p] );
+				minY = Math.min( minY, ys[p] );
+				maxX = Math.max( maxX, xs[p] );
+				maxY = Math.max( maxY, ys[p] );
+				double offset = Math.IEEEremainder( longitude[p] - central, 360 );
+				minLat = Math.min( minLat, latitude[p] );
+				maxLat = Math.max( maxLat, latitude[p] );
+				minOffset = Math.min( minOffset, offset );
+				maxOffset = Math.max( maxOffset, offset );
+			}
+			this.minLat = minLat;
+			this.maxLat = maxLat;
+			this.minOffset = minOffset;
+			this.maxOffset = maxOffset;
+
+			// keep the number of cells proportional to the number of points
+			long maxCells = Math.max( 64, 2L * n );
+			long cols, rws;
+			while( true ){
+				cols = (long) ( ( maxX - minX ) / cellSize ) + 1;
+				rws = (long) ( ( maxY - minY ) / cellSize ) + 1;
+				if( cols * rws <= maxCells ){
+					break;
+				}
+				cellSize *= Math.max( 1.1, Math.sqrt( (double) ( cols * rws ) / maxCells ) );
+			}
+
+			this.minX = minX;
+			this.minY = minY;
+			this.maxX = maxX;
+			this.maxY = maxY;
+			this.cellSize = cellSize;
+			this.columns = (int) cols;
+			this.rows = (int) rws;
+
+			int[] cell = new int[ n ];
+			cellStart = new int[ columns * rows + 1 ];
+			for( int i = 0; i < n; i++ ){
+				int p = order[ from + i ];
+				cell[i] = cellOf( xs[p], ys[p] );
+				cellStart[ cell[i] + 1 ]++;
+			}
+			for( int c = 0; c < columns * rows; c++ ){
+				cellStart[ c + 1 ] += cellStart[c];
+			}
+			int[] fill = cellStart.clone();
+			x = new double[ n ];
+			y = new double[ n ];
+			ux = new double[ n ];
+			uy = new double[ n ];
+			uz = new double[ n ];
+			id = new int[ n ];
+			for( int i = 0; i < n; i++ ){
+				int p = order[ from + i ];
+				int slot = fill[ cell[i] ]++;
+				x[ slot ] = xs[p];
+				y[ slot ] = ys[p];
+				double φ = Math.toRadians( latitude[p] );
+				double λ = Math.toRadians( longitude[p] );
+				ux[ slot ] = Math.cos( φ ) * Math.cos( λ );
+				uy[ slot ] = Math.cos( φ ) * Math.sin( λ );
+				uz[ slot ] = Math.sin( φ );
+				id[ slot ] = p;
+			}
+		}
+
+		private int cellOf( double px, double py ){
+			int col = Math.min( columns - 1, (int) ( ( px - minX ) / cellSize ) );
+			int row = Math.min( rows - 1, (int) ( ( py - minY ) / cellSize ) );
+			return row * columns + col;
+		}
+
+		double boxDistanceSq( double px, double py ){
+			double dx = Math.max( 0, Math.max( minX - px, px - maxX ) );
+			double dy = Math.max( 0, Math.max( minY - py, py - maxY ) );
+			return dx * dx + dy * dy;
+		}
+
+		/**
+		 * @returns {number} Great circle distance in metres from a position to the latitude/longitude
+		 *                   box of the points, a lower bound of their distances.
+		 */
+		double boxDistance( double lat, double lon ){
+			double offset = Math.IEEEremainder( lon - central, 360 );
+			if( offset >= minOffset && offset <= maxOffset ){
+				return EARTH_RADIUS * Math.toRadians( Math.max( 0, Math.max( minLat - lat, lat - maxLat ) ) );
+			}
+			// outside of the longitudes the nearest point of the box is on one of its meridians
+			return Math.min( meridianDistance( lat, offset - minOffset, minLat, maxLat ), meridianDistance( lat, offset - maxOffset, minLat, maxLat ) );
+		}
+
+		int nearest( double qx, double qy, double[] unit, int k, int found, int[] ids, double[] distances ){
+			// cell of the query point, possibly outside of the grid
+			long cx = (long) Math.floor( ( qx - minX ) / cellSize );
+			long cy = (long) Math.floor( ( qy - minY ) / cellSize );
+
+			long first = Math.max( Math.max( 0, Math.max( -cx, cx - ( columns - 1 ) ) ), Math.max( 0, Math.max( -cy, cy - ( rows - 1 ) ) ) );
+			long last = Math.max( Math.max( Math.abs( cx ), Math.abs( cx - ( columns - 1 ) ) ), Math.max( Math.abs( cy ), Math.abs( cy - ( rows - 1 ) ) ) );
+
+			for( long r = first; r <= last; r++ ){
+
+				// no cell of the ring can be closer than (r-1) cells
+				double ring = Math.max( 0, r - 1 ) * cellSize * GRID_MARGIN;
+				if( found == k && minChordSq( ring * ring ) >= distances[0] ){
+					break;
+				}
+
+				long top = cy - r, bottom = cy + r;
+				for( long row = Math.max( 0, top ); row <= Math.min( rows - 1, bottom ); row++ ){
+					if( row == top || row == bottom ){
+						for( long col = Math.max( 0, cx - r ); col <= Math.min( columns - 1, cx + r ); col++ ){
+							found = nearestInCell( (int) ( row * columns + col ), (int) col, (int) row, qx, qy, unit, k, found, ids, distances );
+						}
+					}else{
+						if( cx - r >= 0 && cx - r < columns ){
+							found = nearestInCell( (int) ( row * columns + cx - r ), (int) ( cx - r ), (int) row, qx, qy, unit, k, found, ids, distances );
+						}
+						if( r > 0 && cx + r >= 0 && cx + r < columns ){
+							found = nearestInCell( (int) ( row * columns + cx + r ), (int) ( cx + r ), (int) row, qx, qy, unit, k, found, ids, distances );
+						}
+					}
+				}
+			}
+			return found;
+		}
+
+		private int nearestInCell( int cell, int col, int row, double qx, double qy, double[] unit, int k, int found, int[] ids, double[] distances ){
+			int from = cellStart[ cell ];
+			int to = cellStart[ cell + 1 ];
+			if( from == to ){
+				return found;
+			}
+			if( found == k ){
+				double dx = Math.max( 0, Math.max( minX + col * cellSize - qx, qx - ( minX + ( col + 1 ) * cellSize ) ) );
+				double dy = Math.max( 0, Math.max( minY + row * cellSize - qy, qy - ( minY + ( row + 1 ) * cellSize ) ) );
+				if( minChordSq( ( dx * dx + dy * dy ) * GRID_MARGIN * GRID_MARGIN ) >= distances[0] ){
+					return found;
+				}
+			}
+			return offer( from, to, unit, k, found, ids, distances );
+		}
+
+		/**
+		 * Offers every point of the grid to the max-heap.
+		 */
+		int nearestAll( double[] unit, int k, int found, int[] ids, double[] distances ){
+			return offer( 0, id.length, unit, k, found, ids, distances );
+		}
+
+		private int offer( int from, int to, double[] unit, int k, int found, int[] ids, double[] distances ){
+			for( int i = from; i < to; i++ ){
+				double d = pointChordSq( i, unit );
+				if( found < k ){
+					ids[ found ] = id[i];
+					distances[ found ] = d;
+					siftUp( ids, distances, found++ );
+				}else if( d < distances[0] ){
+					ids[0] = id[i];
+					distances[0] = d;
+					siftDown( ids, distances, 0, k );
+				}
+			}
+			return found;
+		}
+
+		int range( double qx, double qy, double gridRadius, double[] unit, double limitSq, int found, int[] ids ){
+			int fromCol = (int) Math.max( 0, Math.floor( ( qx - gridRadius - minX ) / cellSize ) );
+			int toCol = (int) Math.min( columns - 1, Math.floor( ( qx + gridRadius - minX ) / cellSize ) );
+			int fromRow = (int) Math.max( 0, Math.floor( ( qy - gridRadius - minY ) / cellSize ) );
+			int toRow = (int) Math.min( rows - 1, Math.floor( ( qy + gridRadius - minY ) / cellSize ) );
+			for( int row = fromRow; row <= toRow; row++ ){
+				// the cells of a row are contiguous in the packed arrays
+				found = collect( cellStart[ row * columns + fromCol ], cellStart[ row * columns + toCol + 1 ], unit, limitSq, found, ids );
+			}
+			return found;
+		}
+
+		int rangeAll( double[] unit, double limitSq, int found, int[] ids ){
+			return collect( 0, id.length, unit, limitSq, found, ids );
+		}
+
+		private int collect( int from, int to, double[] unit, double limitSq, int found, int[] ids ){
+			for( int i = from; i < to; i++ ){
+				if( pointChordSq( i, unit ) <= limitSq ){
+					if( found < ids.length ){
+						ids[ found ] = id[i];
+					}
+					found++;
+				}
+			}
+			return found;
+		}
+
+		/**
+		 * Squared chord in metres between point i and the unit vector.
+		 */
+		private double pointChordSq( int i, double[] unit ){
+			double dx = ux[i] - unit[0];
+			double dy = uy[i] - unit[1];
+			double dz = uz[i] - unit[2];
+			return ( dx * dx + dy * dy + dz * dz ) * EARTH_RADIUS * EARTH_RADIUS;
+		}
+	}
+
+	private static void siftUp( int[] ids, double[] distances, int i ){
+		while( i > 0 ){
+			int parent = ( i - 1 ) >> 1;
+			if( distances[ parent ] >= distances[i] ){
+				return;
+			}
+			swap( ids, distances, i, parent );
+			i = parent;
+		}
+	}
+
+	private static void siftDown( int[] ids, double[] distances, int i, int size ){
+		while( true ){
+			int largest = i;
+			int left = 2 * i + 1;
+			int right = left + 1;
+			if( left < size && distances[ left ] > distances[ largest ] ){
+				largest = left;
+			}
+			if( right < size && distances[ right ] > distances[ largest ] ){
+				largest = right;
+			}
+			if( largest == i ){
+				return;
+			}
+			swap( ids, distances, i, largest );
+			i = largest;
+		}
+	}
+
+	private static void swap( int[] ids, double[] distances, int i, int j ){
+		int id = ids[i];
+		ids[i] = ids[j];
+		ids[j] = id;
+		double d = distances[i];
+		distances[i] = distances[j];
+		distances[j] = d;
+	}
+
+	/**
+	 * Zone 61 (longitude 180°) and zone 0 are the same projection as zone 1 and zone 60.
+	 */
+	private static int normalizeZone( int zone ){
+		return ( ( zone - 1 ) % ZONES + ZONES ) % ZONES + 1;
+	}
+
+	private static int getBand( char letter ){
+		int band = BAND_LETTERS.indexOf( Character.toUpperCase( letter ) );
+		if( band < 0 ){
+			throw new IllegalArgumentException( "Invalid latitude band: " + letter );
+		}
+		return band;
+	}
+
+	// same hemisphere rule as WGS84UTM.getUTM2WGS84
+	private static boolean isNorthern( char letter ){
+		return Character.toUpperCase( letter ) > 'M';
+	}
+}
@@ -0,0 +1,44 @@
+package hu.akoel.geo;
+
+/**
+ * Implementation of the WGS84 - UTM projection, with scalar, into-buffer and batch methods.
+ *
+ * Engines are looked up with ProjectionEngines, so a faster or more accurate implementation can
+ * be swapped in without touching the callers. Results are not rounded.
+ *
+ * Every engine runs the loop of its batch methods itself, so the per-point calls inside the loop
+ * always go to one implementation and the JIT can inline them, however many engines are loaded.
+ * Callers should fetch the engine once and convert whole arrays rather than calling the scalar
+ * methods in a loop of their own.
+ */
+public interface UTMProjectionEngine {
+
+	/**
+	 * @returns {String} Name the engine is registered under in ProjectionEngines.
+	 */
+	String getName();
+
+	UTMForm toUTM( double latitude, double longitude );
+
+	/**
+	 * Projects into an existing UTMForm.
+	 */
+	void toUTM( double latitude, double longitude, UTMForm utmForm );
+
+	/**
+	 * Projects the points offset..offset+count-1 of the arrays.
+	 */
+	void toUTM( double[] latitude, double[] longitude, int[] zone, char[] letter, double[] easting, double[] northing, int offset, int count );
+
+	WGS84Form toWGS84( UTMForm utmForm );
+
+	/**
+	 * Latitude and longitude in degrees into out[0..1].
+	 */
+	void toWGS84( int zone, char letter, double easting, double northing, double[] out );
+
+	/**
+	 * Converts the points offset..offset+count-1 of the arrays.
+	 */
+	void toWGS84( int[] zone, char[] letter, double[] easting, double[] northing, double[] latitude, double[] longitude, int offset, int count );
+}
@@ -0,0 +1,303 @@
+package hu.akoel.geo;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Single-pass reader and writer of UTM coordinates as text, one coordinate per line.
+ *
+ * A record is zone, latitude band, easting and northing, separated by any number of spaces or
+ * tabs. The zone and the band may be written together, the band may be lower case, and the
+ * "m E" / "m N" suffixes written by UTMForm.toString are accepted:
+ *
+ *   34 T 388360.123 5263231.456
+ *   34T	388360.123   5263231.456
+ *   34 t 388360.123m E 5263231.456m N
+ *
+ * Bytes are decoded in place into primitive arrays; nothing is allocated per record.
+ *
+ * @example
+ *   int n = UTMTextCodec.decode( buffer, false, zone, letter, easting, northing, 0, zone.length );
+ *   buffer.compact(); // keep the incomplete line for the next read
+ */
+public class UTMTextCodec {
+
+	// longest line a record can take, with generous whitespace
+	private static final int MAX_LINE = 256;
+
+	private UTMTextCodec(){
+	}
+
+	/**
+	 * Parses one record into an existing UTMForm.
+	 *
+	 * @returns {boolean} False if the text is not a UTM coordinate; the form is then undefined.
+	 */
+	public static boolean parse( CharSequence text, UTMForm utmForm ){
+		int length = text.length();
+		byte[] b = new byte[ length ];
+		for( int i = 0; i < length; i++ ){
+			char c = text.charAt( i );
+			if( c > 0x7f ){
+				return false;
+			}
+			b[i] = (byte) c;
+		}
+		return parse( b, 0, length, utmForm );
+	}
+
+	/**
+	 * Parses one record from b[from..to) into an existing UTMForm.
+	 *
+	 * @returns {boolean} False if the range is not a UTM coordinate; the form is then undefined.
+	 */
+	public static boolean parse( byte[] b, int from, int to, UTMForm utmForm ){
+		int i = skipSpace( b, from, to );
+
+		// zone, maybe glued to the band
+		int start = i;
+		while( i < to && b[i] >= '0' && b[i] <= '9' ){
+			i++;
+		}
+		int zone = AsciiNumbers.parseInt( b, start, i );
+		if( zone < 1 || zone > 60 ){
+			return false;
+		}
+		i = skipSpace( b, i, to );
+
+		// band
+		if( i == to || !isBand( b[i] ) ){
+			return false;
+		}
+		char letter = Character.toUpperCase( (char) b[i++] );
+		if( i < to && !isSpace( b[i] ) ){
+			return false;
+		}
+		i = skipSpace( b, i, to );
+
+		// easting [m E]
+		start = i;
+		i = skipNumber( b, i, to );
+		double easting = AsciiNumbers.parseDouble( b, start, i );
+		i = skipUnit( b, i, to, 'E' );
+		if( i < 0 ){
+			return false;
+		}
+
+		// northing [m N]
+		start = skipSpace( b, i, to );
+		i = skipNumber( b, start, to );
+		double northing = AsciiNumbers.parseDouble( b, start, i );
+		i = skipUnit( b, i, to, 'N' );
+		if( i < 0 || skipSpace( b, i, to ) != to || Double.isNaN( easting ) || Double.isNaN( northing ) ){
+			return false;
+		}
+
+		utmForm.zone = zone;
+		utmForm.letter = letter;
+		utmForm.easting = easting;
+		utmForm.northing = northing;
+		return true;
+	}
+
+	/**
+	 * Decodes the complete lines of the buffer into the arrays, from index offset on, until the
+	 * arrays are full. Blank lines are skipped.
+	 *
+	 * On return the position of the buffer is after the last decoded line, so an incomplete
+	 * last line stays in the buffer, unless endOfInput is set.
+	 *
+	 * @param endOfInput - the buffer holds the end of the input, decode the last line even
+	 *                     without line end
+	 * A line that is not a UTM coordinate ends the call: the records before it are returned
+	 * with the position of the buffer at the start of that line, so the next call reports it.
+	 *
+	 * @returns {number} Number of records decoded.
+	 * @throws IllegalArgumentException if the first line to decode is not a UTM coordinate; the
+	 *                                  position of the buffer is at the start of that line.
+	 */
+	public static int decode( ByteBuffer buffer, boolean endOfInput, int[] zone, char[] letter, double[] easting, double[] northing, int offset, int max ){
+		byte[] array;
+		int base;
+		if( buffer.hasArray() ){
+			array = buffer.array();
+			base = buffer.arrayOffset();
+		}else{
+			array = new byte[ MAX_LINE ];
+			base = 0;
+		}
+		UTMForm form = new UTMForm( 0, ' ', 0, 0 );
+
+		int count = 0;
+		int limit = buffer.limit();
+		int position = buffer.position();
+		while( count < max && position < limit ){
+			int end = position;
+			while( end < limit && buffer.get( end ) != '\n' ){
+				end++;
+			}
+			if( end == limit && !endOfInput ){
+				break;
+			}
+
+			int lineEnd = end;
+			if( lineEnd > position && buffer.get( lineEnd - 1 ) == '\r' ){
+				lineEnd--;
+			}
+			int from = base + position;
+			int to = base + lineEnd;
+			if( !buffer.hasArray() ){
+				if( lineEnd - position > MAX_LINE ){
+					return invalidLine( buffer, position, count );
+				}
+				for( int i = position; i < lineEnd; i++ ){
+					array[ i - position ] = buffer.get( i );
+				}
+				from = 0;
+				to = lineEnd - position;
+			}
+
+			boolean parsed = true;
+			if( !isBlank( array, from, to ) ){
+				parsed = parse( array, from, to, form );
+				if( parsed ){
+					zone[ offset + count ] = form.zone;
+					letter[ offset + count ] = form.letter;
+					easting[ offset + count ] = form.easting;
+					northing[ offset + count ] = form.northing;
+					count++;
+				}
+			}
+			if( !parsed ){
+				return invalidLine( buffer, position, count );
+			}
+			position = Math.min( limit, end + 1 );
+		}
+		buffer.position( position );
+		return count;
+	}
+
+	/**
+	 * Stops decoding at an invalid line: returns the records decoded so far, or throws if there
+	 * are none.
+	 */
+	private static int invalidLine( ByteBuffer buffer, int position, int count ){
+		buffer.position( position );
+		if( count == 0 ){
+			throw new IllegalArgumentException( "Invalid UTM coordinate at byte " + position );
+		}
+		return count;
+	}
+
+	/**
+	 * Encodes records of the arrays as lines "zone band easting northing", with dp decimals.
+	 *
+	 * @param dp        - number of decimals, 0..18
+	 * @param withUnits - write the "m E" / "m N" suffixes of UTMForm.toString
+	 * @returns {number} Number of records written; stops early if the buffer is full.
+	 * @throws IllegalArgumentException if dp is out of range, or at the first record with an invalid
+	 *                                  zone or band; the records before it are written
+	 */
+	public static int encode( int[] zone, char[] letter, double[] easting, double[] northing, int offset, int count, int dp, boolean withUnits, ByteBuffer buffer ){
+		checkDecimals( dp );
+		byte[] line = new byte[ MAX_LINE ];
+		for( int i = 0; i < count; i++ ){
+			int length = encode( zone[ offset + i ], letter[ offset + i ], easting[ offset + i ], northing[ offset + i ], dp, withUnits, line, 0 );
+			if( buffer.remaining() < length ){
+				return i;
+			}
+			buffer.put( line, 0, length );
+		}
+		return count;
+	}
+
+	/**
+	 * Encodes one record as a line into b from position pos.
+	 *
+	 * @param dp - number of decimals, 0..18
+	 * @returns {number} Position after the line end.
+	 * @throws IllegalArgumentException if the zone is not 1..60, the band is not 'C'..'X' or dp is
+	 *                                  out of range; nothing is written then
+	 */
+	public static int encode( int zone, char letter, double easting, double northing, int dp, boolean withUnits, byte[] b, int pos ){
+		if( zone < 1 || zone > 60 ){
+			throw new IllegalArgumentException( "Invalid UTM zone: " + zone );
+		}
+		if( letter < 'C' || letter > 'X' ){
+			throw new IllegalArgumentException( "Invalid latitude band: " + letter );
+		}
+		checkDecimals( dp );
+		pos = AsciiNumbers.formatLong( zone, b, pos );
+		b[ pos++ ] = ' ';
+		b[ pos++ ] = (byte) letter;
+		b[ pos++ ] = ' ';
+		pos = AsciiNumbers.formatFixed( easting, dp, b, pos );
+		if( withUnits ){
+			b[ pos++ ] = 'm';
+			b[ pos++ ] = ' ';
+			b[ pos++ ] = 'E';
+		}
+		b[ pos++ ] = ' ';
+		pos = AsciiNumbers.formatFixed( northing, dp, b, pos );
+		if( withUnits ){
+			b[ pos++ ] = 'm';
+			b[ pos++ ] = ' ';
+			b[ pos++ ] = 'N';
+		}
+		b[ pos++ ] = '\n';
+		return pos;
+	}
+
+	private static void checkDecimals( int dp ){
+		if( dp < 0 || dp > 18 ){
+			throw new IllegalArgumentException( "Number of decimals must be 0..18: " + dp );
+		}
+	}
+
+	/**
+	 * Skips an optional [space] 'm' [space] axis suffix.
+	 *
+	 * @returns {number} Position after the suffix, or -1 if the suffix is broken.
+	 */
+	private static int skipUnit( byte[] b, int i, int to, char axis ){
+		int j = skipSpace( b, i, to );
+		if( j < to && ( b[j] == 'm' || b[j] == 'M' ) ){
+			j = skipSpace( b, j + 1, to );
+			if( j < to && Character.toUpperCase( (char) b[j] ) == axis ){
+				return j + 1;
+			}
+			return -1;
+		}
+		return i;
+	}
+
+	private static int skipNumber( byte[] b, int i, int to ){
+		while( i < to && ( ( b[i] >= '0' && b[i] <= '9' ) || b[i] == '.' || b[i] == '-' || b[i] == '+' || b[i] == 'e' || b[i] == 'E' ) ){
+			// an 'E' right after the number, separated by nothing, is an exponent only if a digit or sign follows
+			if( ( b[i] == 'e' || b[i] == 'E' ) && ( i + 1 == to || !( ( b[ i + 1 ] >= '0' && b[ i + 1 ] <= '9' ) || b[ i + 1 ] == '-' || b[ i + 1 ] == '+' ) ) ){
+				break;
+			}
+			i++;
+		}
+		return i;
+	}
+
+	private static int skipSpace( byte[] b, int i, int to ){
+		while( i < to && isSpace( b[i] ) ){
+			i++;
+		}
+		return i;
+	}
+
+	private static boolean isBlank( byte[] b, int from, int to ){
+		return skipSpace( b, from, to ) == to;
+	}
+
+	private static boolean isSpace( byte c ){
+		return c == ' ' || c == '\t' || c == '\r';
+	}
+
+	private static boolean isBand( byte c ){
+		char letter = Character.toUpperCase( (char) c );
+		return letter >= 'C' && letter <= 'X' && letter != 'I' && letter != 'O';
+	}
+}
@@ -0,0 +1,333 @@
+package hu.akoel.geo;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Compact binary encoding of UTM tracks, rounded to centimetres.
+ *
+ * A track is written as runs of consecutive points of the same zone and band, each at most
+ * MAX_RUN points long:
+ *
+ *   count         varint
+ *   zone          byte, 1..60
+ *   band          byte, ASCII letter
+ *   flags         byte, 1 if the run has heights
+ *   per point     easting, northing [, height] in centimetres, each as the zigzag varint of
+ *                 its difference from the previous point of the run; the first point is its
+ *                 difference from 0
+ *
+ * Consecutive track points are metres apart, so a point takes 4 - 6 bytes instead of the 16 - 24
+ * of doubles, and decoding is integer arithmetic straight into primitive arrays.
+ *
+ * Both directions work on whole runs and leave the buffer at a run boundary, so a track can be
+ * streamed through a fixed buffer of at least MIN_BUFFER bytes; the encoder shortens a run to
+ * the points that fit into the buffer:
+ *
+ * @example
+ *   int n = UTMTrackCodec.decode( buffer, zone, letter, easting, northing, height, 0, zone.length );
+ *   buffer.compact(); // keep the incomplete run for the next read
+ */
+public class UTMTrackCodec {
+
+	/** Largest number of points of a run; decoding needs arrays of at least this size */
+	public static final int MAX_RUN = 1024;
+
+	private static final int HAS_HEIGHT = 1;
+
+	// count varint, zone, band and flags
+	private static final int MAX_HEADER = 5 + 3;
+
+	// zigzag varint of a 64 bit value
+	private static final int MAX_VALUE = 10;
+
+	// largest absolute coordinate in metres: the centimetres and their differences fit into 64 bits
+	private static final double MAX_COORDINATE = 1e15;
+
+	/** Smallest buffer that takes a run of one point of any size, with height */
+	public static final int MIN_BUFFER = 1 + 3 + 3 * 9; // a zigzag varint of up to 2e17 cm takes 9 bytes
+
+	private UTMTrackCodec(){
+	}
+
+	/**
+	 * @returns {number} Largest number of bytes count points can be encoded into.
+	 */
+	public static int maxEncodedSize( int count, boolean withHeight ){
+		int runs = ( count + MAX_RUN - 1 ) / MAX_RUN;
+		return runs * MAX_HEADER + count * ( withHeight ? 3 : 2 ) * MAX_VALUE;
+	}
+
+	/**
+	 * Encodes the points offset..offset+count-1 of the arrays, starting a new run wherever the
+	 * zone or the band changes.
+	 *
+	 * @param height - heights in metres, or null to encode the points without height
+	 * @returns {number} Number of points written; a run that does not fit into the buffer is
+	 *                   shortened to the points that fit, so it stops early only if the buffer is
+	 *                   full.
+	 * @throws IllegalArgumentException if a zone is not 1..60, a band is not 'C'..'X', a coordinate
+	 *                                  is not finite or beyond 1e15 m, or not even one point fits
+	 *                                  into an empty buffer, one of less than MIN_BUFFER bytes;
+	 *                                  the runs before are written
+	 */
+	public static int encode( int[] zone, char[] letter, double[] easting, double[] northing, double[] height, int offset, int count, ByteBuffer buffer ){
+		int written = 0;
+		while( written < count ){
+			int start = offset + written;
+			int end = start + 1;
+			while( end < offset + count && end - start < MAX_RUN && zone[ end ] == zone[ start ] && letter[ end ] == letter[ start ] ){
+				end++;
+			}
+			int length = encodeRun( zone[ start ], letter[ start ], easting, northing, height, start, end - start, buffer );
+			written += length;
+			if( length < end - start ){
+				break;
+			}
+		}
+		return written;
+	}
+
+	/**
+	 * Encodes the points as runs of one zone and band.
+	 *
+	 * @param height - heights in metres, or null to encode the points without height
+	 * @returns {number} Number of points written, see encode.
+	 * @throws IllegalArgumentException see encode
+	 */
+	public static int encode( int zone, char letter, double[] easting, double[] northing, double[] height, int offset, int count, ByteBuffer buffer ){
+		int written = 0;
+		while( written < count ){
+			int length = Math.min( MAX_RUN, count - written );
+			int run = encodeRun( zone, letter, easting, northing, height, offset + written, length, buffer );
+			written += run;
+			if( run < length ){
+				break;
+			}
+		}
+		return written;
+	}
+
+	/**
+	 * Decodes whole runs into the arrays, from index offset on, until the arrays cannot take the
+	 * next run or the buffer ends. On return the position of the buffer is after the last decoded
+	 * run, so an incomplete run stays in the buffer.
+	 *
+	 * @param height - receives the heights, 0 for runs without height; may be null if the heights
+	 *                 are not needed
+	 * @returns {number} Number of points decoded.
+	 * @throws IllegalArgumentException if the data is not a track, or max is less than the next
+	 *                                  run; the position of the buffer is at the start of that run.
+	 */
+	public static int decode( ByteBuffer buffer, int[] zone, char[] letter, double[] easting, double[] northing, double[] height, int offset, int max ){
+		// positions of the reader are array indices, or buffer indices without backing array
+		int base = buffer.hasArray() ? buffer.arrayOffset() : 0;
+		Reader in = new Reader( buffer, base + buffer.position(), base + buffer.limit() );
+
+		int decoded = 0;
+		while( in.position < in.limit ){
+			int start = in.position;
+			long count = in.varint();
+			int z = in.next();
+			char l = (char) in.next();
+			int flags = in.next();
+			if( in.incomplete ){
+				in.position = start;
+				break;
+			}
+			if( in.invalid || count < 1 || count > MAX_RUN || z < 1 || z > 60 || l < 'C' || l > 'X' || ( flags & ~HAS_HEIGHT ) != 0 ){
+				buffer.position( start - base );
+				throw new IllegalArgumentException( "Invalid track run at byte " + ( start - base ) );
+			}
+			if( count > max - decoded ){
+				if( decoded == 0 ){
+					buffer.position( start - base );
+					throw new IllegalArgumentException( "Run of " + count + " points does not fit into " + max );
+				}
+				in.position = start;
+				break;
+			}
+
+			boolean withHeight = ( flags & HAS_HEIGHT ) != 0;
+			long e = 0, n = 0, h = 0;
+			for( int i = offset + decoded, to = i + (int) count; i < to; i++ ){
+				e += unzigzag( in.varint() );
+				n += unzigzag( in.varint() );
+				zone[i] = z;
+				letter[i] = l;
+				easting[i] = e / 100.0;
+				northing[i] = n / 100.0;
+				if( withHeight ){
+					h += unzigzag( in.varint() );
+				}
+				if( null != height ){
+					height[i] = h / 100.0;
+				}
+			}
+			if( in.incomplete ){
+				in.position = start;
+				break;
+			}
+			if( in.invalid ){
+				buffer.position( start - base );
+				throw new IllegalArgumentException( "Invalid track run at byte " + ( start - base ) );
+			}
+			decoded += (int) count;
+		}
+		buffer.position( in.position - base );
+		return decoded;
+	}
+
+	/**
+	 * Encodes the run, or as many of its first points as fit into the buffer.
+	 *
+	 * @returns {number} Number of points written, 0 with the buffer unchanged if not even one fits.
+	 */
+	private static int encodeRun( int zone, char letter, double[] easting, double[] northing, double[] height, int offset, int count, ByteBuffer buffer ){
+		if( zone < 1 || zone > 60 ){
+			throw new IllegalArgumentException( "Invalid UTM zone: " + zone );
+		}
+		if( letter < 'C' || letter > 'X' ){
+			throw new IllegalArgumentException( "Invalid latitude band: " + letter );
+		}
+		boolean withHeight = null != height;
+		for( int i = offset; i < offset + count; i++ ){
+			checkCoordinate( easting[i] );
+			checkCoordinate( northing[i] );
+			if( withHeight ){
+				checkCoordinate( height[i] );
+			}
+		}
+		if( buffer.remaining() < maxEncodedSize( count, withHeight ) ){
+			count = fitting( easting, northing, height, offset, count, buffer.remaining() );
+			if( count == 0 ){
+				if( buffer.position() == 0 ){
+					throw new IllegalArgumentException( "Buffer of " + buffer.remaining() + " bytes is too small for a track point, use at least " + MIN_BUFFER );
+				}
+				return 0;
+			}
+		}
+		writeVarint( buffer, count );
+		buffer.put( (byte) zone );
+		buffer.put( (byte) letter );
+		buffer.put( (byte) ( withHeight ? HAS_HEIGHT : 0 ) );
+
+		long e = 0, n = 0, h = 0;
+		for( int i = offset; i < offset + count; i++ ){
+			long ce = Math.round( easting[i] * 100 );
+			long cn = Math.round( northing[i] * 100 );
+			writeVarint( buffer, zigzag( ce - e ) );
+			writeVarint( buffer, zigzag( cn - n ) );
+			e = ce;
+			n = cn;
+			if( withHeight ){
+				long ch = Math.round( height[i] * 100 );
+				writeVarint( buffer, zigzag( ch - h ) );
+				h = ch;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Number of the first points of a run that fit into the given number of bytes, by their exact
+	 * size, for when the buffer is smaller than the worst case.
+	 */
+	private static int fitting( double[] easting, double[] northing, double[] height, int offset, int count, int bytes ){
+		int size = 0;
+		long e = 0, n = 0, h = 0;
+		for( int i = offset; i < offset + count; i++ ){
+			long ce = Math.round( easting[i] * 100 );
+			long cn = Math.round( northing[i] * 100 );
+			size += varintSize( zigzag( ce - e ) ) + varintSize( zigzag( cn - n ) );
+			e = ce;
+			n = cn;
+			if( null != height ){
+				long ch = Math.round( height[i] * 100 );
+				size += varintSize( zigzag( ch - h ) );
+				h = ch;
+			}
+			// header of a run of the points so far
+			if( varintSize( i - offset + 1 ) + 3 + size > bytes ){
+				return i - offset;
+			}
+		}
+		return count;
+	}
+
+	private static void checkCoordinate( double value ){
+		if( !( Math.abs( value ) <= MAX_COORDINATE ) ){
+			throw new IllegalArgumentException( "Coordinate is not finite or beyond " + MAX_COORDINATE + " m: " + value );
+		}
+	}
+
+	private static long zigzag( long value ){
+		return ( value << 1 ) ^ ( value >> 63 );
+	}
+
+	private static long unzigzag( long value ){
+		return ( value >>> 1 ) ^ -( value & 1 );
+	}
+
+	private static void writeVarint( ByteBuffer buffer, long value ){
+		while( ( value & ~0x7fL ) != 0 ){
+			buffer.put( (byte) ( ( value & 0x7f ) | 0x80 ) );
+			value >>>= 7;
+		}
+		buffer.put( (byte) value );
+	}
+
+	/**
+	 * Bytes of a buffer being decoded, straight from the backing array if there is one, else by
+	 * absolute gets. Reading past the limit sets incomplete, and an overlong varint sets invalid;
+	 * both yield zeros, so the decoding loop checks them once per run.
+	 */
+	private static final class Reader {
+		final byte[] b;
+		final ByteBuffer buffer;
+		final int limit;
+		int position;
+		boolean incomplete, invalid;
+
+		Reader( ByteBuffer buffer, int position, int limit ){
+			this.b = buffer.hasArray() ? buffer.array() : null;
+			this.buffer = buffer;
+			this.position = position;
+			this.limit = limit;
+		}
+
+		int next(){
+			if( position >= limit ){
+				incomplete = true;
+				return 0;
+			}
+			return ( null != b ) ? b[ position++ ] : buffer.get( position++ );
+		}
+
+		long varint(){
+			long value = 0;
+			for( int shift = 0; shift < 64; shift += 7 ){
+				if( position >= limit ){
+					incomplete = true;
+					return 0;
+				}
+				byte c = ( null != b ) ? b[ position++ ] : buffer.get( position++ );
+				value |= (long) ( c & 0x7f ) << shift;
+				if( c >= 0 ){
+					return value;
+				}
+			}
+			// more than ten bytes cannot be a 64 bit value
+			invalid = true;
+			return 0;
+		}
+	}
+
+	private static int varintSize( long value ){
+		int size = 1;
+		while( ( value & ~0x7fL ) != 0 ){
+			value >>>= 7;
+			size++;
+		}
+		return size;
+	}
+}
@@ -0,0 +1,47 @@
+package hu.akoel.geo;
+
+/**
+ * Projection of WGS84 coordinates into one fixed UTM zone, as a CoordinateOperation:
+ * latitude, longitude, height become northing, easting, height.
+ *
+ * Unlike WGS84UTM.getWGS842UTM every point goes into the same zone, so a data set that crosses
+ * a zone boundary stays in one continuous coordinate system, and the results are not rounded.
+ */
+public final class UTMZoneProjection implements CoordinateOperation {
+
+	private final int zone;
+	private final double falseNorthing;
+
+	/**
+	 * @param zone     - UTM zone, 1..60
+	 * @param southern - add the false northing of the southern hemisphere
+	 */
+	public UTMZoneProjection( int zone, boolean southern ){
+		if( zone < 1 || zone > 60 ){
+			throw new IllegalArgumentException( "Invalid UTM zone: " + zone );
+		}
+		this.zone = zone;
+		this.falseNorthing = southern ? 10000000 : 0;
+	}
+
+	public int getZone(){
+		return zone;
+	}
+
+	@Override
+	public void transform( double latitude, double longitude, double height, double[] out ){
+		out[0] = WGS84UTM.getNorthing( latitude, longitude, zone ) + falseNorthing;
+		out[1] = WGS84UTM.getEasting( latitude, longitude, zone );
+		out[2] = height;
+	}
+
+	@Override
+	public void transform( double[] latitude, double[] longitude, double[] height, int offset, int count ){
+		for( int i = offset; i < offset + count; i++ ){
+			double lat = latitude[i];
+			double lon = longitude[i];
+			latitude[i] = WGS84UTM.getNorthing( lat, lon, zone ) + falseNorthing;
+			longitude[i] = WGS84UTM.getEasting( lat, lon, zone );
+		}
+	}
+}
@@ -0,0 +1,230 @@
+package hu.akoel.geo;
+
+/**
+ * Converts between WGS84 and the Hungarian National Grid (EOV, EPSG:23700).
+ *
+ * EOV is an oblique conformal cylindrical projection of the HD72 datum (GRS67 ellipsoid): the
+ * ellipsoid is first mapped onto a Gaussian sphere, the sphere is rotated so that the origin
+ * falls on the equator, and then it is projected by an oblique Mercator cylinder. The constants
+ * of all three steps are computed once, when the class is loaded.
+ *
+ * The WGS84 methods also apply the Helmert shift of Datums.HD72; the HD72 methods only project.
+ *
+ * Source: oblique Mercator formulas of PROJ 'somerc' with the EOV parameters of EPSG:23700
+ */
+public class WGS84EOV {
+
+	private static final double φ0 = Math.toRadians( 47 + 8/60.0 + 39.8174/3600 );  // 47°08′39.8174″
+	private static final double λ0 = Math.toRadians( 19 + 2/60.0 + 54.8584/3600 );  // 19°02′54.8584″
+	private static final double k0 = 0.99993;
+	private static final double FALSE_EASTING = 650000;
+	private static final double FALSE_NORTHING = 200000;
+
+	private static final int ITERATIONS = 6;
+	private static final double EPSILON = 1e-12;
+
+	private static final double a = Ellipsoids.GRS67.constants.a;
+	private static final double e2 = Ellipsoids.GRS67.constants.e2;
+	private static final double e = Ellipsoids.GRS67.constants.e;
+
+	// Gaussian sphere: φ' = 2·atan( exp( c·ψ(φ) + K ) ) - π/2, λ' = c·λ
+	private static final double c;
+	private static final double K;
+
+	// rotation of the sphere moving the origin to the equator
+	private static final double sinφ0p, cosφ0p;
+
+	// radius of the cylinder, relative to a
+	private static final double kR;
+
+	static{
+		double sinφ0 = Math.sin( φ0 );
+		double cosφ0 = Math.cos( φ0 );
+
+		c = Math.sqrt( 1 + e2*cosφ0*cosφ0*cosφ0*cosφ0/(1-e2) );
+		sinφ0p = sinφ0 / c;
+		double φ0p = Math.asin( sinφ0p );
+		cosφ0p = Math.cos( φ0p );
+
+		double esinφ0 = e * sinφ0;
+		K = Math.log( Math.tan( Math.PI/4 + φ0p/2 ) ) - c * ( Math.log( Math.tan( Math.PI/4 + φ0/2 ) ) - e/2 * Math.log( (1+esinφ0)/(1-esinφ0) ) );
+		kR = k0 * Math.sqrt( 1-e2 ) / ( 1 - esinφ0*esinφ0 );
+	}
+
+	// compiled Helmert transformations between WGS84 and HD72
+	private static final AffineTransformation TO_HD72 = GeodeticRegistry.getDatum( Datums.HD72 ).fromWGS84;
+	private static final AffineTransformation TO_WGS84 = GeodeticRegistry.getDatum( Datums.HD72 ).toWGS84;
+
+	/**
+	 * @returns {EOVForm} EOV coordinates; the height is the HD72 ellipsoidal height if the WGS84
+	 *                    altitude is known, otherwise null.
+	 */
+	public static EOVForm getWGS842EOV( WGS84Form wgs84Form ){
+		double[] out = new double[3];
+		double height = ( null == wgs84Form.altitude ) ? 0 : wgs84Form.altitude;
+		shiftDatum( wgs84Form.latitude, wgs84Form.longitude, height, TO_HD72, Ellipsoids.WGS84, Ellipsoids.GRS67, out );
+		Double hd72Height = ( null == wgs84Form.altitude ) ? null : out[2];
+		project( out[0], out[1], out );
+		return new EOVForm( out[0], out[1], hd72Height );
+	}
+
+	/**
+	 * @returns {WGS84Form} WGS84 coordinates; the altitude is the WGS84 ellipsoidal height if the
+	 *                      EOV height is known, otherwise null.
+	 */
+	public static WGS84Form getEOV2WGS84( EOVForm eovForm ){
+		double[] out = new double[3];
+		unproject( eovForm.easting, eovForm.northing, out );
+		double height = ( null == eovForm.height ) ? 0 : eovForm.height;
+		shiftDatum( out[0], out[1], height, TO_WGS84, Ellipsoids.GRS67, Ellipsoids.WGS84, out );
+		return new WGS84Form( out[0], out[1], ( null == eovForm.height ) ? null : out[2] );
+	}
+
+	public static EOVForm getHD722EOV( double latitude, double longitude ){
+		double[] out = new double[2];
+		project( latitude, longitude, out );
+		return new EOVForm( out[0], out[1] );
+	}
+
+	/**
+	 * Projects HD72 coordinates to EOV, without datum shift; the altitude becomes the height.
+	 */
+	public static EOVForm getHD722EOV( HD72Form hd72Form ){
+		double[] out = new double[2];
+		project( hd72Form.latitude, hd72Form.longitude, out );
+		return new EOVForm( out[0], out[1], hd72Form.altitude );
+	}
+
+	/**
+	 * Converts EOV coordinates to HD72, without datum shift; the height becomes the altitude.
+	 */
+	public static HD72Form getEOV2HD72( EOVForm eovForm ){
+		double[] out = new double[2];
+		unproject( eovForm.easting, eovForm.northing, out );
+		return new HD72Form( out[0], out[1], eovForm.height );
+	}
+
+	/**
+	 * Projects arrays of WGS84 coordinates to EOV in one pass. Heights are taken as 0.
+	 *
+	 * @param latitude  - latitudes in degrees
+	 * @param longitude - longitudes in degrees
+	 * @param easting   - receives the EOV Y coordinates in metres
+	 * @param northing  - receives the EOV X coordinates in metres
+	 * @param count     - number of points to project
+	 */
+	public static void getWGS842EOV( double[] latitude, double[] longitude, double[] easting, double[] northing, int count ){
+		double[] out = new double[3];
+		for( int i = 0; i < count; i++ ){
+			shiftDatum( latitude[i], longitude[i], 0, TO_HD72, Ellipsoids.WGS84, Ellipsoids.GRS67, out );
+			project( out[0], out[1], out );
+			easting[i] = out[0];
+			northing[i] = out[1];
+		}
+	}
+
+	/**
+	 * Converts arrays of EOV coordinates to WGS84 in one pass.
+	 *
+	 * @param easting   - EOV Y coordinates in metres
+	 * @param northing  - EOV X coordinates in metres
+	 * @param latitude  - receives the latitudes in degrees
+	 * @param longitude - receives the longitudes in degrees
+	 * @param count     - number of points to convert
+	 */
+	public static void getEOV2WGS84( double[] easting, double[] northing, double[] latitude, double[] longitude, int count ){
+		double[] out = new double[3];
+		for( int i = 0; i < count; i++ ){
+			unproject( easting[i], northing[i], out );
+			shiftDatum( out[0], out[1], 0, TO_WGS84, Ellipsoids.GRS67, Ellipsoids.WGS84, out );
+			latitude[i] = out[0];
+			longitude[i] = out[1];
+		}
+	}
+
+	/**
+	 * Projects arrays of HD72 coordinates to EOV in one pass, without datum shift.
+	 */
+	public static void getHD722EOV( double[] latitude, double[] longitude, double[] easting, double[] northing, int count ){
+		double[] out = new double[2];
+		for( int i = 0; i < count; i++ ){
+			project( latitude[i], longitude[i], out );
+			easting[i] = out[0];
+			northing[i] = out[1];
+		}
+	}
+
+	/**
+	 * Converts arrays of EOV coordinates to HD72 in one pass, without datum shift.
+	 */
+	public static void getEOV2HD72( double[] easting, double[] northing, double[] latitude, double[] longitude, int count ){
+		double[] out = new double[2];
+		for( int i = 0; i < count; i++ ){
+			unproject( easting[i], northing[i], out );
+			latitude[i] = out[0];
+			longitude[i] = out[1];
+		}
+	}
+
+	/**
+	 * HD72 latitude/longitude in degrees to EOV easting/northing in out[0], out[1].
+	 */
+	static void project( double latitude, double longitude, double[] out ){
+		double φ = Math.toRadians( latitude );
+		double λ = Math.toRadians( longitude ) - λ0;
+
+		// ellipsoid -> Gaussian sphere
+		double esinφ = e * Math.sin( φ );
+		double φp = 2 * Math.atan( Math.exp( c * ( Math.log( Math.tan( Math.PI/4 + φ/2 ) ) - e/2 * Math.log( (1+esinφ)/(1-esinφ) ) ) + K ) ) - Math.PI/2;
+		double λp = c * λ;
+
+		// rotated sphere
+		double cosφp = Math.cos( φp );
+		double φpp = Math.asin( cosφ0p*Math.sin( φp ) - sinφ0p*cosφp*Math.cos( λp ) );
+		double λpp = Math.asin( cosφp*Math.sin( λp ) / Math.cos( φpp ) );
+
+		// oblique cylinder
+		out[0] = FALSE_EASTING + a * kR * λpp;
+		out[1] = FALSE_NORTHING + a * kR * Math.log( Math.tan( Math.PI/4 + φpp/2 ) );
+	}
+
+	/**
+	 * EOV easting/northing to HD72 latitude/longitude in degrees in out[0], out[1].
+	 */
+	static void unproject( double easting, double northing, double[] out ){
+
+		// oblique cylinder -> rotated sphere
+		double φpp = 2 * ( Math.atan( Math.exp( ( northing - FALSE_NORTHING ) / ( a * kR ) ) ) - Math.PI/4 );
+		double λpp = ( easting - FALSE_EASTING ) / ( a * kR );
+
+		// rotated sphere -> Gaussian sphere
+		double cosφpp = Math.cos( φpp );
+		double φp = Math.asin( cosφ0p*Math.sin( φpp ) + sinφ0p*cosφpp*Math.cos( λpp ) );
+		double λp = Math.asin( cosφpp*Math.sin( λpp ) / Math.cos( φp ) );
+
+		// Gaussian sphere -> ellipsoid, by Newton iteration of the isometric latitude
+		double con = ( K - Math.log( Math.tan( Math.PI/4 + φp/2 ) ) ) / c;
+		double φ = φp;
+		for( int i = 0; i < ITERATIONS; i++ ){
+			double esinφ = e * Math.sin( φ );
+			double δ = ( con + Math.log( Math.tan( Math.PI/4 + φ/2 ) ) - e/2 * Math.log( (1+esinφ)/(1-esinφ) ) ) * ( 1 - esinφ*esinφ ) * Math.cos( φ ) / ( 1-e2 );
+			φ -= δ;
+			if( Math.abs( δ ) < EPSILON ){
+				break;
+			}
+		}
+
+		out[0] = Math.toDegrees( φ );
+		out[1] = Math.toDegrees( λp / c + λ0 );
+	}
+
+	/**
+	 * Datum shift of a geodetic point through ECEF, the same way as LatLonEllipsoidal.convertDatum,
+	 * but on primitives. Latitude, longitude and height are written to out[0..2].
+	 */
+	private static void shiftDatum( double latitude, double longitude, double height, AffineTransformation t, Ellipsoids from, Ellipsoids to, double[] out ){
+		LatLonEllipsoidal.toCartesian( latitude, longitude, height, from.constants, out );
+		t.transform( out[0], out[1], out[2], out );
+		Cartesian.toLatLon( out[0], out[1], out[2], to.constants, out );
+	}
+}
@@ -0,0 +1,668 @@
+package hu.akoel.geo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Differential accuracy and throughput check of the conversions of the package.
+ *
+ * Reproducible point sets (dense, polar, zone boundary, antimeridian) are run through every
+ * registered UTM projection engine and compared with KrugerUTMEngine, together with the rounded
+ * WGS84UTM, Deg2UTM and UTM2Deg API, the datum conversions, EOV and the interpolated
+ * projection. Errors are reported as p50 / p99 / max in millimetres and ulps, with a histogram
+ * by decades, next to the points per second of the batch calls.
+ *
+ * The harness is a development tool, not part of the library. It lives outside of src and is
+ * compiled together with it, as it uses package-private members:
+ *
+ *   javac -d out src/hu/akoel/geo/*.java tools/hu/akoel/geo/*.java
+ *
+ * The limits are arguments of the form name=value; the process exits with 1 if any of them is
+ * exceeded, so it can guard a build:
+ *
+ *   java -cp out hu.akoel.geo.ConformanceHarness points=200000 seed=1
+ *
+ *   points               - points per set (100000)
+ *   seed                 - seed of the point sets (1)
+ *   maxForwardMm         - projection error of an engine against the reference (30)
+ *   maxInverseMm         - inverse projection error of an engine against the reference (30)
+ *   maxRoundTripMm       - drift of UTM round trips, also of the rounded WGS84UTM API (25)
+ *   maxDatumRoundTripMm  - drift of convertDatum A -> B -> A (25)
+ *   maxDatumMismatchMm   - difference of Datum.convert and the compiled chains from convertDatum (0.01)
+ *   maxChainRoundTripMm  - difference of the compiled chain A -> B -> A from convertDatum, which
+ *                          also converts to and from geodetic coordinates of B (0.1)
+ *   maxEovRoundTripMm    - drift of WGS84 -> EOV -> WGS84 (1)
+ *   maxEovControlMm      - difference of EOV from the Hotine oblique Mercator (variant B) of
+ *                          EPSG:23700 at fixed control points (0.001)
+ *   minRelativeThroughput - throughput of the batch conversions of every engine, as a fraction
+ *                          of the throughput of ReferenceUTMEngine in the same run (0.25)
+ *   minPointsPerSecond   - absolute throughput of the batch conversions of every engine; it
+ *                          depends on the machine, so it is off unless given (0)
+ *   minReferencePointsPerSecond - absolute throughput of the batch conversions of
+ *                          ReferenceUTMEngine, which the relative limit cannot catch; about a
+ *                          tenth of its rate on a desktop machine, so only a regression by an
+ *                          order of magnitude fails on a slow one (50000)
+ *
+ * The default limits are about one and a half times the errors of the current formulas, so
+ * any loss of accuracy beyond noise fails the run. Ulps are counted at the magnitude of the
+ * coordinate, but at 1 degree or 100 km at least. Throughput is gated relative to the
+ * reference engine by default, so the run gives the same verdict on a slow build machine; the
+ * reference engine itself has a loose absolute floor.
+ */
+public class ConformanceHarness {
+
+	// metres of one degree of latitude, to express angular errors as distances
+	private static final double METRES_PER_DEGREE = 111319.49;
+
+	private final Options options;
+	private final List<String> failures = new ArrayList<String>();
+
+	private ConformanceHarness( Options options ){
+		this.options = options;
+	}
+
+	public static void main( String[] args ){
+		ConformanceHarness harness = new ConformanceHarness( new Options( args ) );
+		harness.run();
+		if( harness.failures.isEmpty() ){
+			System.out.println( "PASSED" );
+		}else{
+			System.out.println( "FAILED" );
+			for( String failure : harness.failures ){
+				System.out.println( "  " + failure );
+			}
+			System.exit( 1 );
+		}
+	}
+
+	private void run(){
+		int n = options.points;
+		Random random = new Random( options.seed );
+		PointSet[] sets = {
+				PointSet.dense( n, random ),
+				PointSet.polar( n, random ),
+				PointSet.zoneBoundary( n, random ),
+				PointSet.antimeridian( n, random )
+		};
+
+		UTMProjectionEngine reference = ProjectionEngines.get( KrugerUTMEngine.NAME );
+		for( PointSet set : sets ){
+			System.out.println( "== " + set.name + ", " + set.size + " points" );
+			UTM expected = new UTM( set.size );
+			reference.toUTM( set.lat, set.lon, expected.zone, expected.letter, expected.easting, expected.northing, 0, set.size );
+
+			for( String name : ProjectionEngines.getNames() ){
+				if( !name.equals( reference.getName() ) ){
+					checkEngine( ProjectionEngines.get( name ), set, expected );
+				}
+			}
+			checkThroughput( set, expected );
+			checkRoundedApi( set );
+		}
+
+		checkDatums( sets[0] );
+		checkEov( random );
+		checkInterpolation( random );
+	}
+
+	/**
+	 * Forward and inverse error of an engine against the reference and its round trip drift.
+	 */
+	private void checkEngine( UTMProjectionEngine engine, PointSet set, UTM expected ){
+		int n = set.size;
+		UTM actual = new UTM( n );
+		engine.toUTM( set.lat, set.lon, actual.zone, actual.letter, actual.easting, actual.northing, 0, n );
+
+		Errors forward = new Errors( engine.getName() + " toUTM" );
+		int zoneMismatches = 0;
+		for( int i = 0; i < n; i++ ){
+			if( actual.zone[i] != expected.zone[i] || actual.letter[i] != expected.letter[i] ){
+				zoneMismatches++;
+				continue;
+			}
+			double de = actual.easting[i] - expected.easting[i];
+			double dn = actual.northing[i] - expected.northing[i];
+			forward.add( Math.hypot( de, dn ) * 1000, Math.max( ulpsMetres( de, expected.easting[i] ), ulpsMetres( dn, expected.northing[i] ) ) );
+		}
+		forward.print();
+		limit( set.name + ": " + engine.getName() + " zone/band mismatches", zoneMismatches, 0 );
+		limit( set.name + ": " + forward.name + " max mm", forward.max(), options.maxForwardMm );
+
+		double[] lat = new double[ n ];
+		double[] lon = new double[ n ];
+		engine.toWGS84( expected.zone, expected.letter, expected.easting, expected.northing, lat, lon, 0, n );
+
+		Errors inverse = new Errors( engine.getName() + " toWGS84" );
+		for( int i = 0; i < n; i++ ){
+			inverse.add( angularMm( set.lat[i], set.lon[i], lat[i], lon[i] ), Math.max( ulpsDegrees( lat[i] - set.lat[i], set.lat[i] ), ulpsDegrees( normalize( lon[i] - set.lon[i] ), set.lon[i] ) ) );
+		}
+		inverse.print();
+		limit( set.name + ": " + inverse.name + " max mm", inverse.max(), options.maxInverseMm );
+
+		engine.toWGS84( actual.zone, actual.letter, actual.easting, actual.northing, lat, lon, 0, n );
+		Errors roundTrip = new Errors( engine.getName() + " round trip" );
+		for( int i = 0; i < n; i++ ){
+			roundTrip.add( angularMm( set.lat[i], set.lon[i], lat[i], lon[i] ), Math.max( ulpsDegrees( lat[i] - set.lat[i], set.lat[i] ), ulpsDegrees( normalize( lon[i] - set.lon[i] ), set.lon[i] ) ) );
+		}
+		roundTrip.print();
+		limit( set.name + ": " + roundTrip.name + " max mm", roundTrip.max(), options.maxRoundTripMm );
+	}
+
+	/**
+	 * Points per second of the batch calls of every engine, absolute and relative to
+	 * ReferenceUTMEngine timed on the same points.
+	 */
+	private void checkThroughput( PointSet set, UTM expected ){
+		double[] reference = rates( ProjectionEngines.get( ReferenceUTMEngine.NAME ), set, expected );
+		minimum( set.name + ": " + ReferenceUTMEngine.NAME + " toUTM points/s", reference[0], options.minReferencePointsPerSecond );
+		minimum( set.name + ": " + ReferenceUTMEngine.NAME + " toWGS84 points/s", reference[1], options.minReferencePointsPerSecond );
+		for( String name : ProjectionEngines.getNames() ){
+			double[] rates = name.equals( ReferenceUTMEngine.NAME ) ? reference : rates( ProjectionEngines.get( name ), set, expected );
+			System.out.println( String.format( Locale.ENGLISH, "  %-28s %,.0f points/s toUTM (%.2f), %,.0f points/s toWGS84 (%.2f)", name + " throughput", rates[0], rates[0] / reference[0], rates[1], rates[1] / reference[1] ) );
+			minimum( set.name + ": " + name + " toUTM relative throughput", rates[0] / reference[0], options.minRelativeThroughput );
+			minimum( set.name + ": " + name + " toWGS84 relative throughput", rates[1] / reference[1], options.minRelativeThroughput );
+			minimum( set.name + ": " + name + " toUTM points/s", rates[0], options.minPointsPerSecond );
+			minimum( set.name + ": " + name + " toWGS84 points/s", rates[1], options.minPointsPerSecond );
+		}
+	}
+
+	/**
+	 * @returns {double[]} Points per second of the batch toUTM and toWGS84 calls of the engine,
+	 *                     the better of three timed runs after a warm-up.
+	 */
+	private static double[] rates( UTMProjectionEngine engine, PointSet set, UTM expected ){
+		int n = set.size;
+		UTM actual = new UTM( n );
+		double[] lat = new double[ n ];
+		double[] lon = new double[ n ];
+		engine.toUTM( set.lat, set.lon, actual.zone, actual.letter, actual.easting, actual.northing, 0, Math.min( n, 20000 ) );
+		engine.toWGS84( expected.zone, expected.letter, expected.easting, expected.northing, lat, lon, 0, Math.min( n, 20000 ) );
+		double[] rates = new double[2];
+		for( int run = 0; run < 3; run++ ){
+			long start = System.nanoTime();
+			engine.toUTM( set.lat, set.lon, actual.zone, actual.letter, actual.easting, actual.northing, 0, n );
+			rates[0] = Math.max( rates[0], n / ( ( System.nanoTime() - start ) / 1e9 ) );
+			start = System.nanoTime();
+			engine.toWGS84( expected.zone, expected.letter, expected.easting, expected.northing, lat, lon, 0, n );
+			rates[1] = Math.max( rates[1], n / ( ( System.nanoTime() - start ) / 1e9 ) );
+		}
+		return rates;
+	}
+
+	/**
+	 * Round trip of the rounded getWGS842UTM -> getUTM2WGS84 API, and agreement of its scalar,
+	 * batch and Deg2UTM / UTM2Deg forms.
+	 */
+	private void checkRoundedApi( PointSet set ){
+		int n = set.size;
+		UTM utm = new UTM( n );
+		double[] lat = new double[ n ];
+		double[] lon = new double[ n ];
+		WGS84UTM.getWGS842UTM( set.lat, set.lon, utm.zone, utm.letter, utm.easting, utm.northing, n );
+		WGS84UTM.getUTM2WGS84( utm.zone, utm.letter, utm.easting, utm.northing, lat, lon, n );
+
+		Errors roundTrip = new Errors( "WGS84UTM round trip" );
+		for( int i = 0; i < n; i++ ){
+			roundTrip.add( angularMm( set.lat[i], set.lon[i], lat[i], lon[i] ), Math.max( ulpsDegrees( lat[i] - set.lat[i], set.lat[i] ), ulpsDegrees( normalize( lon[i] - set.lon[i] ), set.lon[i] ) ) );
+		}
+		roundTrip.print();
+		limit( set.name + ": " + roundTrip.name + " max mm", roundTrip.max(), options.maxRoundTripMm );
+
+		// the different forms of the API must give identical results; sampled, they allocate
+		int mismatches = 0;
+		for( int i = 0; i < n; i += 97 ){
+			UTMForm form = WGS84UTM.getWGS842UTM( new WGS84Form( set.lat[i], set.lon[i] ) );
+			Deg2UTM deg2UTM = new Deg2UTM( set.lat[i], set.lon[i] );
+			UTM2Deg utm2Deg = new UTM2Deg( utm.zone[i], utm.letter[i], utm.easting[i], utm.northing[i] );
+			WGS84Form wgs84 = WGS84UTM.getUTM2WGS84( form );
+			if( form.zone != utm.zone[i] || form.letter != utm.letter[i] || form.easting != utm.easting[i] || form.northing != utm.northing[i]
+					|| deg2UTM.Zone != utm.zone[i] || deg2UTM.Letter != utm.letter[i] || deg2UTM.Easting != utm.easting[i] || deg2UTM.Northing != utm.northing[i]
+					|| wgs84.latitude != lat[i] || wgs84.longitude != lon[i] || utm2Deg.latitude != lat[i] || utm2Deg.longitude != lon[i] ){
+				mismatches++;
+			}
+		}
+		limit( set.name + ": WGS84UTM scalar / batch / Deg2UTM / UTM2Deg mismatches", mismatches, 0 );
+	}
+
+	/**
+	 * convertDatum A -> B -> A for every pair of the built-in datums, and the agreement of
+	 * Datum.convert and the compiled transform chains with convertDatum. The A -> B -> A chain
+	 * must not cancel the approximately inverse datum shifts, so it has to match the eager
+	 * round trip, drift included; it only skips the geodetic coordinates of B in between.
+	 */
+	private void checkDatums( PointSet set ){
+		int n = Math.min( set.size, 5000 );
+		System.out.println( "== datums, " + n + " points per pair" );
+		Errors roundTrip = new Errors( "convertDatum A->B->A" );
+		Errors mismatch = new Errors( "Datum.convert, chains" );
+		Errors chainRoundTrip = new Errors( "chain A->B->A" );
+		double[] out = new double[3];
+		for( Datums a : Datums.values() ){
+			for( Datums b : Datums.values() ){
+				if( a == b ){
+					continue;
+				}
+				Datum from = GeodeticRegistry.getDatum( a );
+				Datum to = GeodeticRegistry.getDatum( b );
+				double[] lat = Arrays.copyOf( set.lat, n );
+				double[] lon = Arrays.copyOf( set.lon, n );
+				double[] h = new double[ n ];
+				TransformChain.fromGeodetic( from ).convertDatum( to ).compile().transform( lat, lon, h, 0, n );
+				double[] lat2 = Arrays.copyOf( set.lat, n );
+				double[] lon2 = Arrays.copyOf( set.lon, n );
+				double[] h2 = new double[ n ];
+				TransformChain.fromGeodetic( from ).convertDatum( to ).convertDatum( from ).compile().transform( lat2, lon2, h2, 0, n );
+
+				for( int i = 0; i < n; i++ ){
+					LatLonEllipsoidal p = new LatLonEllipsoidal( set.lat[i], set.lon[i], 0, a ).convertDatum( b );
+					LatLonEllipsoidal back = p.convertDatum( a );
+					roundTrip.add( distanceMm( set.lat[i], set.lon[i], 0, back.lat, back.lon, back.height ), Math.max( ulpsDegrees( back.lat - set.lat[i], set.lat[i] ), ulpsDegrees( normalize( back.lon - set.lon[i] ), set.lon[i] ) ) );
+
+					from.convert( to, set.lat[i], set.lon[i], 0, out );
+					double worst = Math.max( distanceMm( p.lat, p.lon, p.height, out[0], out[1], out[2] ), distanceMm( p.lat, p.lon, p.height, lat[i], lon[i], h[i] ) );
+					mismatch.add( worst, Math.max( ulpsDegrees( out[0] - p.lat, p.lat ), ulpsDegrees( lat[i] - p.lat, p.lat ) ) );
+					chainRoundTrip.add( distanceMm( back.lat, back.lon, back.height, lat2[i], lon2[i], h2[i] ), ulpsDegrees( lat2[i] - back.lat, back.lat ) );
+				}
+			}
+		}
+		roundTrip.print();
+		mismatch.print();
+		chainRoundTrip.print();
+		limit( "datums: " + roundTrip.name + " max mm", roundTrip.max(), options.maxDatumRoundTripMm );
+		limit( "datums: " + mismatch.name + " max mm", mismatch.max(), options.maxDatumMismatchMm );
+		limit( "datums: " + chainRoundTrip.name + " max mm", chainRoundTrip.max(), options.maxChainRoundTripMm );
+	}
+
+	/**
+	 * WGS84 -> EOV -> WGS84 over Hungary.
+	 */
+	private void checkEov( Random random ){
+		int n = Math.min( options.points, 100000 );
+		System.out.println( "== EOV, " + n + " points" );
+		double[] lat = new double[ n ];
+		double[] lon = new double[ n ];
+		for( int i = 0; i < n; i++ ){
+			lat[i] = 45.7 + 2.9 * random.nextDouble();
+			lon[i] = 16.1 + 6.8 * random.nextDouble();
+		}
+		double[] easting = new double[ n ];
+		double[] northing = new double[ n ];
+		double[] lat2 = new double[ n ];
+		double[] lon2 = new double[ n ];
+		long start = System.nanoTime();
+		WGS84EOV.getWGS842EOV( lat, lon, easting, northing, n );
+		double rate = n / ( ( System.nanoTime() - start ) / 1e9 );
+		WGS84EOV.getEOV2WGS84( easting, northing, lat2, lon2, n );
+
+		Errors roundTrip = new Errors( "EOV round trip" );
+		for( int i = 0; i < n; i++ ){
+			roundTrip.add( angularMm( lat[i], lon[i], lat2[i], lon2[i] ), Math.max( ulpsDegrees( lat2[i] - lat[i], lat[i] ), ulpsDegrees( lon2[i] - lon[i], lon[i] ) ) );
+		}
+		roundTrip.print();
+		System.out.println( String.format( Locale.ENGLISH, "  %-28s %,.0f points/s", "EOV throughput", rate ) );
+		limit( "EOV: " + roundTrip.name + " max mm", roundTrip.max(), options.maxEovRoundTripMm );
+
+		// control points: a fixed HD72 grid over Hungary, the projection centre and its corners
+		Errors control = new Errors( "EOV - Hotine (B)" );
+		double[] out = new double[2];
+		double[] hotine = new double[2];
+		for( double controlLat = 45.75; controlLat <= 48.6; controlLat += 0.25 ){
+			for( double controlLon = 16.1; controlLon <= 22.9; controlLon += 0.4 ){
+				WGS84EOV.project( controlLat, controlLon, out );
+				hotineObliqueMercatorB( controlLat, controlLon, hotine );
+				double de = out[0] - hotine[0];
+				double dn = out[1] - hotine[1];
+				control.add( Math.hypot( de, dn ) * 1000, Math.max( ulpsMetres( de, hotine[0] ), ulpsMetres( dn, hotine[1] ) ) );
+			}
+		}
+		control.print();
+		limit( "EOV: " + control.name + " max mm", control.max(), options.maxEovControlMm );
+	}
+
+	/**
+	 * EOV by the Hotine oblique Mercator (variant B) formulas of EPSG Guidance Note 7-2, method
+	 * 9815, with the parameters of EPSG:23700: an independent derivation of the projection that
+	 * WGS84EOV computes through the Gaussian sphere. HD72 latitude/longitude in degrees to
+	 * easting/northing in out[0], out[1].
+	 */
+	static void hotineObliqueMercatorB( double latitude, double longitude, double[] out ){
+		double a = 6378160;
+		double f = 1 / 298.247167427;
+		double e2 = f * ( 2 - f );
+		double e = Math.sqrt( e2 );
+		double φc = Math.toRadians( 47 + 8 / 60.0 + 39.8174 / 3600 );
+		double λc = Math.toRadians( 19 + 2 / 60.0 + 54.8584 / 3600 );
+		double αc = Math.toRadians( 90 );
+		double γc = Math.toRadians( 90 );
+		double kc = 0.99993;
+
+		double sinφc = Math.sin( φc );
+		double cosφc = Math.cos( φc );
+		double B = Math.sqrt( 1 + e2 * Math.pow( cosφc, 4 ) / ( 1 - e2 ) );
+		double A = a * B * kc * Math.sqrt( 1 - e2 ) / ( 1 - e2 * sinφc * sinφc );
+		double t0 = Math.tan( Math.PI / 4 - φc / 2 ) / Math.pow( ( 1 - e * sinφc ) / ( 1 + e * sinφc ), e / 2 );
+		double D = Math.max( 1, B * Math.sqrt( 1 - e2 ) / ( cosφc * Math.sqrt( 1 - e2 * sinφc * sinφc ) ) );
+		double F = D + Math.sqrt( D * D - 1 ) * Math.signum( φc );
+		double H = F * Math.pow( t0, B );
+		double γ0 = Math.asin( Math.sin( αc ) / D );
+		// for αc = 90 degrees G tan γ0 is 1: asin is ill-conditioned there (1 ulp is 0.1 m), so use
+		// its exact value, and the special form of uc, the general one divides by cos αc = 0
+		double λ0 = λc - Math.PI / 2 / B;
+		double uc = A * ( λc - λ0 );
+
+		double φ = Math.toRadians( latitude );
+		double λ = Math.toRadians( longitude );
+		double sinφ = Math.sin( φ );
+		double t = Math.tan( Math.PI / 4 - φ / 2 ) / Math.pow( ( 1 - e * sinφ ) / ( 1 + e * sinφ ), e / 2 );
+		double Q = H / Math.pow( t, B );
+		double S = ( Q - 1 / Q ) / 2;
+		double T = ( Q + 1 / Q ) / 2;
+		double V = Math.sin( B * ( λ - λ0 ) );
+		double U = ( -V * Math.cos( γ0 ) + S * Math.sin( γ0 ) ) / T;
+		double v = A * Math.log( ( 1 - U ) / ( 1 + U ) ) / ( 2 * B );
+		double u = A * Math.atan2( S * Math.cos( γ0 ) + V * Math.sin( γ0 ), Math.cos( B * ( λ - λ0 ) ) ) / B - Math.abs( uc ) * Math.signum( φc );
+
+		out[0] = v * Math.cos( γc ) + u * Math.sin( γc ) + 650000;
+		out[1] = u * Math.cos( γc ) - v * Math.sin( γc ) + 200000;
+	}
+
+	/**
+	 * InterpolatedProjection must stay within its estimated error of the exact projection.
+	 */
+	private void checkInterpolation( Random random ){
+		int n = Math.min( options.points, 100000 );
+		System.out.println( "== interpolated UTM 34, " + n + " points" );
+		UTMZoneProjection exact = new UTMZoneProjection( 34, false );
+		InterpolatedProjection interpolated = new InterpolatedProjection( exact, 47.0, 19.0, 48.0, 20.0, 0.5, 0.001, 16 );
+		double[] n0 = new double[ n ], e0 = new double[ n ], h = new double[ n ];
+		for( int i = 0; i < n; i++ ){
+			n0[i] = 47.0 + random.nextDouble();
+			e0[i] = 19.0 + random.nextDouble();
+		}
+		double[] n1 = n0.clone(), e1 = e0.clone();
+		exact.transform( n0, e0, h, 0, n );
+		interpolated.transform( n1, e1, h, 0, n );
+
+		Errors error = new Errors( "interpolated - exact" );
+		for( int i = 0; i < n; i++ ){
+			double dn = n1[i] - n0[i];
+			double de = e1[i] - e0[i];
+			error.add( Math.hypot( dn, de ) * 1000, Math.max( ulpsMetres( dn, n0[i] ), ulpsMetres( de, e0[i] ) ) );
+		}
+		error.print();
+		limit( "interpolation: " + error.name + " max mm", error.max(), interpolated.getMaxError() * 1000 );
+	}
+
+	private void limit( String what, double value, double limit ){
+		if( value > limit ){
+			failures.add( String.format( Locale.ENGLISH, "%s: %s > %s", what, format( value ), format( limit ) ) );
+		}
+	}
+
+	private void minimum( String what, double value, double limit ){
+		if( value < limit ){
+			failures.add( String.format( Locale.ENGLISH, "%s: %s < %s", what, format( value ), format( limit ) ) );
+		}
+	}
+
+	private static String format( double value ){
+		return String.format( Locale.ENGLISH, "%.6g", value );
+	}
+
+	/**
+	 * Distance of two latitude/longitude points in millimetres, on a sphere; good enough for
+	 * errors far below a kilometre.
+	 */
+	private static double angularMm( double lat1, double lon1, double lat2, double lon2 ){
+		double dy = ( lat2 - lat1 ) * METRES_PER_DEGREE;
+		double dx = normalize( lon2 - lon1 ) * METRES_PER_DEGREE * Math.cos( Math.toRadians( lat1 ) );
+		return Math.hypot( dx, dy ) * 1000;
+	}
+
+	private static double distanceMm( double lat1, double lon1, double h1, double lat2, double lon2, double h2 ){
+		double horizontal = angularMm( lat1, lon1, lat2, lon2 );
+		double vertical = ( h2 - h1 ) * 1000;
+		return Math.hypot( horizontal, vertical );
+	}
+
+	/**
+	 * Longitude difference into -180..180, so zone 61 and zone 1 compare equal.
+	 */
+	private static double normalize( double dLon ){
+		return dLon - 360 * Math.rint( dLon / 360 );
+	}
+
+	/**
+	 * Error in ulps of a coordinate in degrees, counted at 1 degree at least, so that points near
+	 * the equator or a zero meridian do not inflate it.
+	 */
+	private static double ulpsDegrees( double error, double value ){
+		return Math.abs( error ) / Math.ulp( Math.max( Math.abs( value ), 1 ) );
+	}
+
+	/**
+	 * Error in ulps of a coordinate in metres, counted at 100 km at least.
+	 */
+	private static double ulpsMetres( double error, double value ){
+		return Math.abs( error ) / Math.ulp( Math.max( Math.abs( value ), 100000 ) );
+	}
+
+	/**
+	 * Error samples of one check.
+	 */
+	private static final class Errors {
+		// upper bounds of the histogram buckets in millimetres
+		private static final double[] BUCKETS = { 0.001, 0.01, 0.1, 1, 10, 100, 1000 };
+		private static final String[] LABELS = { "<1um", "<10um", "<0.1mm", "<1mm", "<1cm", "<10cm", "<1m", ">=1m" };
+
+		final String name;
+		private double[] mm = new double[ 1024 ];
+		private double[] ulps = new double[ 1024 ];
+		private int size;
+
+		Errors( String name ){
+			this.name = name;
+		}
+
+		void add( double errorMm, double errorUlps ){
+			if( size == mm.length ){
+				mm = Arrays.copyOf( mm, size * 2 );
+				ulps = Arrays.copyOf( ulps, size * 2 );
+			}
+			// a NaN result is the worst error there is
+			mm[ size ] = Double.isNaN( errorMm ) ? Double.POSITIVE_INFINITY : errorMm;
+			ulps[ size++ ] = Double.isNaN( errorUlps ) ? Double.POSITIVE_INFINITY : errorUlps;
+		}
+
+		double max(){
+			double max = 0;
+			for( int i = 0; i < size; i++ ){
+				max = Math.max( max, mm[i] );
+			}
+			return max;
+		}
+
+		void print(){
+			if( size == 0 ){
+				System.out.println( String.format( Locale.ENGLISH, "  %-28s no samples", name ) );
+				return;
+			}
+			double[] sortedMm = Arrays.copyOf( mm, size );
+			double[] sortedUlps = Arrays.copyOf( ulps, size );
+			Arrays.sort( sortedMm );
+			Arrays.sort( sortedUlps );
+
+			int[] histogram = new int[ LABELS.length ];
+			for( int i = 0, b = 0; i < size; i++ ){
+				while( b < BUCKETS.length && sortedMm[i] >= BUCKETS[b] ){
+					b++;
+				}
+				histogram[b]++;
+			}
+			StringBuilder buckets = new StringBuilder();
+			for( int b = 0; b < LABELS.length; b++ ){
+				if( histogram[b] > 0 ){
+					buckets.append( ' ' ).append( LABELS[b] ).append( ':' ).append( histogram[b] );
+				}
+			}
+
+			System.out.println( String.format( Locale.ENGLISH, "  %-28s mm p50 %s p99 %s max %s | ulps p99 %s max %s |%s",
+					name,
+					format( percentile( sortedMm, 0.5 ) ), format( percentile( sortedMm, 0.99 ) ), format( sortedMm[ size - 1 ] ),
+					format( percentile( sortedUlps, 0.99 ) ), format( sortedUlps[ size - 1 ] ),
+					buckets ) );
+		}
+
+		private double percentile( double[] sorted, double p ){
+			return sorted[ Math.min( size - 1, (int) ( p * size ) ) ];
+		}
+	}
+
+	/**
+	 * UTM coordinates of a point set.
+	 */
+	private static final class UTM {
+		final int[] zone;
+		final char[] letter;
+		final double[] easting, northing;
+
+		UTM( int size ){
+			zone = new int[ size ];
+			letter = new char[ size ];
+			easting = new double[ size ];
+			northing = new double[ size ];
+		}
+	}
+
+	/**
+	 * Reproducible set of WGS84 points inside of the UTM latitude range, -80..84.
+	 */
+	private static final class PointSet {
+		final String name;
+		final int size;
+		final double[] lat, lon;
+
+		private PointSet( String name, int size ){
+			this.name = name;
+			this.size = size;
+			lat = new double[ size ];
+			lon = new double[ size ];
+		}
+
+		static PointSet dense( int n, Random random ){
+			PointSet set = new PointSet( "dense", n );
+			for( int i = 0; i < n; i++ ){
+				set.lat[i] = -80 + 164 * random.nextDouble();
+				set.lon[i] = -180 + 360 * random.nextDouble();
+			}
+			return set;
+		}
+
+		static PointSet polar( int n, Random random ){
+			PointSet set = new PointSet( "polar", n );
+			for( int i = 0; i < n; i++ ){
+				set.lat[i] = random.nextBoolean() ? 72 + 12 * random.nextDouble() : -80 + 8 * random.nextDouble();
+				set.lon[i] = -180 + 360 * random.nextDouble();
+			}
+			return set;
+		}
+
+		/**
+		 * Points within 1e-9..1e-2 degrees of a zone boundary, on both sides of it.
+		 */
+		static PointSet zoneBoundary( int n, Random random ){
+			PointSet set = new PointSet( "zone boundary", n );
+			for( int i = 0; i < n; i++ ){
+				double offset = Math.pow( 10, -9 + 7 * random.nextDouble() );
+				double boundary = -174 + 6 * random.nextInt( 59 );
+				set.lat[i] = -80 + 164 * random.nextDouble();
+				set.lon[i] = random.nextBoolean() ? boundary + offset : boundary - offset;
+			}
+			return set;
+		}
+
+		/**
+		 * Points within 0.1 degrees of the antimeridian, on both sides, and on it.
+		 */
+		static PointSet antimeridian( int n, Random random ){
+			PointSet set = new PointSet( "antimeridian", n );
+			for( int i = 0; i < n; i++ ){
+				set.lat[i] = -80 + 164 * random.nextDouble();
+				switch( i % 8 ){
+				case 0:
+					set.lon[i] = -180;
+					break;
+				case 1:
+					set.lon[i] = 180;
+					break;
+				default:
+					double offset = 0.1 * random.nextDouble();
+					set.lon[i] = random.nextBoolean() ? 180 - offset : -180 + offset;
+				}
+			}
+			return set;
+		}
+	}
+
+	/**
+	 * Parameters of a run, from name=value arguments.
+	 */
+	private static final class Options {
+		int points = 100000;
+		long seed = 1;
+		double maxForwardMm = 30;
+		double maxInverseMm = 30;
+		double maxRoundTripMm = 25;
+		double maxDatumRoundTripMm = 25;
+		double maxDatumMismatchMm = 0.01;
+		double maxChainRoundTripMm = 0.1;
+		double maxEovRoundTripMm = 1;
+		double maxEovControlMm = 0.001;
+		double minRelativeThroughput = 0.25;
+		double minPointsPerSecond = 0;
+		double minReferencePointsPerSecond = 50000;
+
+		Options( String[] args ){
+			for( String arg : args ){
+				int eq = arg.indexOf( '=' );
+				if( eq < 0 ){
+					throw new IllegalArgumentException( "Expected name=value: " + arg );
+				}
+				String name = arg.substring( 0, eq );
+				String value = arg.substring( eq + 1 );
+				if( "points".equals( name ) ){
+					points = Integer.parseInt( value );
+				}else if( "seed".equals( name ) ){
+					seed = Long.parseLong( value );
+				}else if( "maxForwardMm".equals( name ) ){
+					maxForwardMm = Double.parseDouble( value );
+				}else if( "maxInverseMm".equals( name ) ){
+					maxInverseMm = Double.parseDouble( value );
+				}else if( "maxRoundTripMm".equals( name ) ){
+					maxRoundTripMm = Double.parseDouble( value );
+				}else if( "maxDatumRoundTripMm".equals( name ) ){
+					maxDatumRoundTripMm = Double.parseDouble( value );
+				}else if( "maxDatumMismatchMm".equals( name ) ){
+					maxDatumMismatchMm = Double.parseDouble( value );
+				}else if( "maxChainRoundTripMm".equals( name ) ){
+					maxChainRoundTripMm = Double.parseDouble( value );
+				}else if( "maxEovRoundTripMm".equals( name ) ){
+					maxEovRoundTripMm = Double.parseDouble( value );
+				}else if( "maxEovControlMm".equals( name ) ){
+					maxEovControlMm = Double.parseDouble( value );
+				}else if( "minRelativeThroughput".equals( name ) ){
+					minRelativeThroughput = Double.parseDouble( value );
+				}else if( "minPointsPerSecond".equals( name ) ){
+					minPointsPerSecond = Double.parseDouble( value );
+				}else if( "minReferencePointsPerSecond".equals( name ) ){
+					minReferencePointsPerSecond = Double.parseDouble( value );
+				}else{
+					throw new IllegalArgumentException( "Unknown option: " + name );
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,179 @@
+package hu.akoel.geo;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Regression check of UTMTrackCodec: streaming through small fixed buffers and rejecting
+ * values it cannot encode.
+ *
+ * Like ConformanceHarness it is a development tool, compiled together with the library:
+ *
+ *   javac -d out src/hu/akoel/geo/*.java tools/hu/akoel/geo/*.java
+ *   java -cp out hu.akoel.geo.UTMTrackCodecCheck
+ *
+ * The process exits with 1 if any check fails.
+ */
+public class UTMTrackCodecCheck {
+
+	private final List<String> failures = new ArrayList<String>();
+
+	public static void main( String[] args ){
+		UTMTrackCodecCheck check = new UTMTrackCodecCheck();
+		check.run();
+		if( check.failures.isEmpty() ){
+			System.out.println( "PASSED" );
+		}else{
+			System.out.println( "FAILED" );
+			for( String failure : check.failures ){
+				System.out.println( "  " + failure );
+			}
+			System.exit( 1 );
+		}
+	}
+
+	private void run(){
+		Track track = new Track( 10000, new Random( 1 ) );
+		for( boolean direct : new boolean[]{ false, true } ){
+			for( int size : new int[]{ UTMTrackCodec.MIN_BUFFER, 100, 3000, 1 << 16 } ){
+				checkStream( track, null, direct, size );
+				checkStream( track, track.height, direct, size );
+			}
+		}
+		checkTooSmall();
+		checkInvalid( Double.NaN );
+		checkInvalid( Double.POSITIVE_INFINITY );
+		checkInvalid( Double.NEGATIVE_INFINITY );
+		checkInvalid( 1e16 );
+	}
+
+	/**
+	 * Encode / flip / decode / compact through one buffer; every point must come back to the
+	 * centimetre, and every round must make progress.
+	 */
+	private void checkStream( Track track, double[] height, boolean direct, int size ){
+		String name = ( direct ? "direct " : "heap " ) + size + " bytes" + ( null == height ? "" : ", with height" );
+		int n = track.size;
+		ByteBuffer buffer = direct ? ByteBuffer.allocateDirect( size ) : ByteBuffer.allocate( size );
+		int[] zone = new int[ n ];
+		char[] letter = new char[ n ];
+		double[] easting = new double[ n ];
+		double[] northing = new double[ n ];
+		double[] h = new double[ n ];
+
+		int encoded = 0;
+		int decoded = 0;
+		while( decoded < n ){
+			int written = UTMTrackCodec.encode( track.zone, track.letter, track.easting, track.northing, height, encoded, n - encoded, buffer );
+			encoded += written;
+			buffer.flip();
+			int read = UTMTrackCodec.decode( buffer, zone, letter, easting, northing, h, decoded, n - decoded );
+			decoded += read;
+			buffer.compact();
+			if( written == 0 && read == 0 ){
+				failures.add( name + ": no progress after " + decoded + " points" );
+				return;
+			}
+		}
+		for( int i = 0; i < n; i++ ){
+			if( zone[i] != track.zone[i] || letter[i] != track.letter[i]
+					|| Math.abs( easting[i] - track.easting[i] ) > 0.005 + 1e-9
+					|| Math.abs( northing[i] - track.northing[i] ) > 0.005 + 1e-9
+					|| Math.abs( h[i] - ( null == height ? 0 : height[i] ) ) > 0.005 + 1e-9 ){
+				failures.add( name + ": point " + i + " differs" );
+				return;
+			}
+		}
+		System.out.println( "  " + name + ": " + n + " points" );
+	}
+
+	/**
+	 * A buffer smaller than one point must fail, not return 0 forever.
+	 */
+	private void checkTooSmall(){
+		// the largest coordinates take the longest varints
+		double[] easting = { 1e15 };
+		double[] northing = { -1e15 };
+		double[] height = { 1e15 };
+		ByteBuffer buffer = ByteBuffer.allocate( UTMTrackCodec.MIN_BUFFER - 1 );
+		try{
+			UTMTrackCodec.encode( 34, 'T', easting, northing, height, 0, 1, buffer );
+			failures.add( "buffer of " + buffer.capacity() + " bytes: no exception" );
+		}catch( IllegalArgumentException e ){
+			System.out.println( "  buffer of " + buffer.capacity() + " bytes: " + e.getMessage() );
+		}
+		buffer = ByteBuffer.allocate( UTMTrackCodec.MIN_BUFFER );
+		if( UTMTrackCodec.encode( 34, 'T', easting, northing, height, 0, 1, buffer ) != 1 ){
+			failures.add( "buffer of " + buffer.capacity() + " bytes: point not written" );
+		}
+	}
+
+	/**
+	 * A value that cannot be encoded must fail and leave the buffer at the end of the runs before.
+	 */
+	private void checkInvalid( double value ){
+		for( int component = 0; component < 3; component++ ){
+			double[][] values = { { 500000, 500001, 500002 }, { 5000000, 5000001, 5000002 }, { 100, 101, 102 } };
+			values[ component ][2] = value;
+			int[] zone = { 34, 35, 35 };
+			char[] letter = { 'T', 'T', 'T' };
+			ByteBuffer buffer = ByteBuffer.allocate( 256 );
+			try{
+				UTMTrackCodec.encode( zone, letter, values[0], values[1], values[2], 0, 3, buffer );
+				failures.add( value + " in component " + component + ": no exception" );
+			}catch( IllegalArgumentException e ){
+				// the first run of zone 34 is complete, nothing of the second one is written
+				buffer.flip();
+				int[] z = new int[ 3 ];
+				char[] l = new char[ 3 ];
+				double[] e0 = new double[ 3 ], e1 = new double[ 3 ], e2 = new double[ 3 ];
+				int read = UTMTrackCodec.decode( buffer, z, l, e0, e1, e2, 0, 3 );
+				if( read != 1 || buffer.hasRemaining() ){
+					failures.add( value + " in component " + component + ": " + read + " points and " + buffer.remaining() + " bytes left" );
+				}
+			}
+		}
+		System.out.println( "  " + value + ": rejected" );
+	}
+
+	/**
+	 * Random walk of metres long steps, crossing zones and bands, with a few long jumps.
+	 */
+	private static final class Track {
+		final int size;
+		final int[] zone;
+		final char[] letter;
+		final double[] easting, northing, height;
+
+		Track( int size, Random random ){
+			this.size = size;
+			zone = new int[ size ];
+			letter = new char[ size ];
+			easting = new double[ size ];
+			northing = new double[ size ];
+			height = new double[ size ];
+			double e = 500000, n = 5000000, h = 100;
+			int z = 34;
+			char l = 'T';
+			for( int i = 0; i < size; i++ ){
+				if( random.nextInt( 1500 ) == 0 ){
+					z = 1 + random.nextInt( 60 );
+					l = "CDEFGHJKLMNPQRSTUVWX".charAt( random.nextInt( 20 ) );
+				}
+				if( random.nextInt( 500 ) == 0 ){
+					e = 1e9 * ( random.nextDouble() - 0.5 );
+				}
+				e += 10 * ( random.nextDouble() - 0.5 );
+				n += 10 * ( random.nextDouble() - 0.5 );
+				h += random.nextDouble() - 0.5;
+				zone[i] = z;
+				letter[i] = l;
+				easting[i] = e;
+				northing[i] = n;
+				height[i] = h;
+			}
+		}
+	}
+}